@@ -0,0 +1,86 @@
+package benchmarks;
+
+import config.DatabaseConnection;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.Domicilio;
+import model.Persona;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operaciones de una fila de BaseDAO: create (con su propia conexión), insert sobre una
+ * conexión ya tomada, read y findByID por ID al azar. La tabla se vuelve a cargar antes de
+ * cada iteración para que los insert no la hagan crecer de una medición a la otra.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private DomicilioDAO domicilioDao;
+    private PersonaDAO personaDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        domicilioDao = new DomicilioDAO();
+        personaDao = new PersonaDAO(domicilioDao);
+    }
+
+    @Setup(Level.Iteration)
+    public void reload() throws SQLException {
+        EmbeddedDatabase.populate(ROWS);
+    }
+
+    private static int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+
+    @Benchmark
+    public Domicilio createDomicilio() throws SQLException {
+        return domicilioDao.create(new Domicilio(0, "Godoy Cruz", "Mendoza"));
+    }
+
+    @Benchmark
+    public Persona createPersona() throws SQLException {
+        // Inserta también el domicilio nuevo en cascada.
+        return personaDao.create(new Persona(0, "Nueva Persona", 30, new Domicilio(0, "Godoy Cruz", "Mendoza")));
+    }
+
+    @Benchmark
+    public Domicilio insertDomicilio() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return domicilioDao.insert(conn, new Domicilio(0, "Godoy Cruz", "Mendoza"));
+        }
+    }
+
+    @Benchmark
+    public Optional<Persona> readPersona() throws SQLException {
+        return personaDao.read(randomId());
+    }
+
+    @Benchmark
+    public Persona findPersonaById() throws SQLException {
+        return personaDao.findByID(randomId());
+    }
+}
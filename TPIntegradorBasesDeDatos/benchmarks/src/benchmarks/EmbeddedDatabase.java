@@ -0,0 +1,247 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Base H2 en memoria, en modo MySQL, con el esquema de integradorprog2.sql y las migraciones
+ * de migraciones/ aplicadas en orden de nombre. Los benchmarks la usan en lugar de un MySQL
+ * real para que los resultados no dependan de la red ni de otra carga en el servidor; lo que
+ * se compara entre commits es el costo del código Java.
+ *
+ * {@link #start()} fija DB_URL, DB_DRIVER y el resto de la configuración como propiedades
+ * de sistema, así que debe llamarse antes de usar DatabaseConnection por primera vez.
+ */
+public final class EmbeddedDatabase {
+
+    public static final String URL = "jdbc:h2:mem:integradorprog2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    public static final String USER = "sa";
+    public static final String PASSWORD = "";
+
+    private static final Pattern TABLE_OPTIONS = Pattern.compile("\\)\\s*ENGINE=.*$", Pattern.DOTALL);
+    private static final Pattern AUTO_INCREMENT_START = Pattern.compile(",\\s*AUTO_INCREMENT=(\\d+)\\s*$");
+    private static final Pattern ADD_KEY = Pattern.compile("^ADD KEY (`?\\w+`?) (\\(.*\\))$", Pattern.DOTALL);
+    private static final Pattern ALTER_TABLE = Pattern.compile("^ALTER TABLE (`?\\w+`?)\\s+(.*)$", Pattern.DOTALL);
+
+    private static boolean started;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Crea el esquema (una sola vez por JVM) y configura DatabaseConnection para usarlo.
+     * El script se busca en la propiedad bench.schema o, si no está, en ../../integradorprog2.sql
+     * (la raíz del repositorio vista desde benchmarks/); las migraciones, en bench.migrations
+     * o en la carpeta migraciones junto al script.
+     */
+    public static synchronized void start() throws SQLException, IOException {
+        if (started) {
+            return;
+        }
+        setDefault("DB_URL", URL);
+        setDefault("DB_USER", USER);
+        setDefault("DB_USER_PASSWORD", PASSWORD);
+        setDefault("DB_DRIVER", "org.h2.Driver");
+        setDefault("DB_POOL_ENABLED", "true");
+        setDefault("DB_POOL_MAX_SIZE", "8");
+        setDefault("DB_POOL_MIN_IDLE", "2");
+        setDefault("DB_STATEMENT_CACHE_SIZE", "64");
+
+        Path script = Paths.get(System.getProperty("bench.schema", "../../integradorprog2.sql")).toAbsolutePath();
+        Path migrations = Paths.get(System.getProperty("bench.migrations", script.resolveSibling("migraciones").toString()));
+        List<Path> scripts = new ArrayList<>();
+        scripts.add(script);
+        if (Files.isDirectory(migrations)) {
+            try (Stream<Path> files = Files.list(migrations)) {
+                files.filter(f -> f.getFileName().toString().endsWith(".sql")).sorted().forEach(scripts::add);
+            }
+        }
+        try (Connection conn = DriverManager.getConnection(System.getProperty("DB_URL"), USER, PASSWORD);
+             Statement st = conn.createStatement()) {
+            for (Path file : scripts) {
+                for (String sql : sanitize(Files.readString(file, StandardCharsets.UTF_8))) {
+                    st.execute(sql);
+                }
+            }
+        }
+        started = true;
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Convierte el volcado de phpMyAdmin en sentencias que H2 entiende: saca comentarios,
+     * SET y control de transacciones, las opciones de tabla de InnoDB, separa los ALTER
+     * TABLE con varias cláusulas y pasa los ADD KEY a CREATE INDEX.
+     */
+    static List<String> sanitize(String dump) {
+        String withoutComments = dump
+                .replaceAll("(?s)/\\*!.*?\\*/;?", "")
+                .replaceAll("(?m)^--.*$", "");
+        List<String> result = new ArrayList<>();
+        for (String raw : splitStatements(withoutComments)) {
+            String sql = raw.trim();
+            String upper = sql.toUpperCase();
+            if (sql.isEmpty() || upper.startsWith("SET ") || upper.startsWith("START TRANSACTION") || upper.equals("COMMIT")) {
+                continue;
+            }
+            if (upper.startsWith("CREATE TABLE")) {
+                result.add(TABLE_OPTIONS.matcher(sql).replaceFirst(")"));
+            } else if (upper.startsWith("ALTER TABLE")) {
+                result.addAll(splitAlter(sql));
+            } else {
+                result.add(sql);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> splitAlter(String sql) {
+        List<String> result = new ArrayList<>();
+        Matcher alter = ALTER_TABLE.matcher(sql);
+        if (!alter.matches()) {
+            result.add(sql);
+            return result;
+        }
+        String table = alter.group(1);
+        String clauses = alter.group(2).trim();
+        if (clauses.toUpperCase().startsWith("MODIFY")) {
+            // MODIFY `id` int(3) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=4
+            Matcher start = AUTO_INCREMENT_START.matcher(clauses);
+            String restart = "1";
+            if (start.find()) {
+                restart = start.group(1);
+                clauses = clauses.substring(0, start.start());
+            }
+            if (!clauses.toUpperCase().contains("AUTO_INCREMENT")) {
+                result.add("ALTER TABLE " + table + " " + clauses);
+                return result;
+            }
+            // En modo MySQL, H2 2.2 trata cada valor de una columna de identidad como si se
+            // hubiera insertado a mano y ajusta la secuencia después del insert; con varias
+            // transacciones insertando a la vez la secuencia retrocede y entrega IDs repetidos
+            // (pasa también con JDBC directo). Una secuencia propia como DEFAULT no es de
+            // identidad, así que no se ajusta, y getGeneratedKeys la sigue devolviendo.
+            String column = clauses.split("\\s+")[1];
+            String sequence = sequenceName(table, column);
+            result.add("ALTER TABLE " + table + " " + clauses.replaceAll("(?i)\\s+AUTO_INCREMENT\\b", ""));
+            result.add("CREATE SEQUENCE " + sequence + " START WITH " + restart);
+            result.add("ALTER TABLE " + table + " ALTER COLUMN " + column + " SET DEFAULT NEXT VALUE FOR " + sequence);
+            return result;
+        }
+        for (String clause : splitTopLevel(clauses)) {
+            Matcher key = ADD_KEY.matcher(clause.trim());
+            if (key.matches()) {
+                result.add("CREATE INDEX " + key.group(1) + " ON " + table + " " + key.group(2));
+            } else {
+                result.add("ALTER TABLE " + table + " " + clause.trim());
+            }
+        }
+        return result;
+    }
+
+    // Secuencia que reemplaza al AUTO_INCREMENT de la columna (ver splitAlter).
+    private static String sequenceName(String table, String column) {
+        return (table + "_" + column + "_seq").replace("`", "");
+    }
+
+    // Separa por ';' fuera de comillas.
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inString = false;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            }
+            if (c == ';' && !inString) {
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        statements.add(current.toString());
+        return statements;
+    }
+
+    // Separa por ',' fuera de paréntesis.
+    private static List<String> splitTopLevel(String clauses) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (char c : clauses.toCharArray()) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+            if (c == ',' && depth == 0) {
+                parts.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        parts.add(current.toString());
+        return parts;
+    }
+
+    /**
+     * Deja exactamente personas filas en persona (y una décima parte en domicilio), con IDs
+     * desde 1 sin huecos, para que cada medición empiece con la misma tabla.
+     */
+    public static void populate(int personas) throws SQLException {
+        int domicilios = Math.max(1, personas / 10);
+        try (Connection conn = DriverManager.getConnection(System.getProperty("DB_URL"), USER, PASSWORD)) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.execute("DELETE FROM persona");
+                st.execute("DELETE FROM domicilio");
+                st.execute("ALTER SEQUENCE " + sequenceName("domicilio", "id") + " RESTART WITH " + (domicilios + 1));
+                st.execute("ALTER SEQUENCE " + sequenceName("persona", "id") + " RESTART WITH " + (personas + 1));
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO domicilio (id, localidad, provincia) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= domicilios; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "Localidad " + i);
+                    ps.setString(3, "Provincia " + (i % 24));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO persona (id, nombre, edad, id_domicilio) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= personas; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "Persona " + i);
+                    ps.setInt(3, 18 + i % 70);
+                    ps.setInt(4, 1 + i % domicilios);
+                    ps.addBatch();
+                    if (i % 1000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+}
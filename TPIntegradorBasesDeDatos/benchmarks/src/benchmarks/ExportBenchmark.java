@@ -0,0 +1,75 @@
+package benchmarks;
+
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import export.ExportFormat;
+import export.ExportResult;
+import export.TableExporter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import model.Persona;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TableExporter a CSV y JSON Lines frente a lo que había antes: findAll() y toString()
+ * de cada persona. La salida se descarta, así se mide la lectura y la codificación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private PersonaDAO personaDao;
+    private TableExporter csv;
+    private TableExporter jsonl;
+
+    @Setup
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(rows);
+        personaDao = new PersonaDAO(new DomicilioDAO());
+        csv = new TableExporter(personaDao, ExportFormat.CSV);
+        jsonl = new TableExporter(personaDao, ExportFormat.JSONL);
+    }
+
+    @Benchmark
+    public ExportResult exportCsv() throws IOException, SQLException {
+        return csv.export(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public ExportResult exportJsonl() throws IOException, SQLException {
+        return jsonl.export(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long findAllToString() throws IOException, SQLException {
+        OutputStream out = OutputStream.nullOutputStream();
+        long bytes = 0;
+        for (Persona persona : personaDao.findAll()) {
+            byte[] text = persona.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(text);
+            bytes += text.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import model.Persona;
+import model.PersonaNombre;
+import model.PersonaResumen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PersonaDAO.findAll (lista completa) frente a streamAll (cursor) y a las proyecciones
+ * NOMBRE (sin join) y RESUMEN (con join, sin armar Persona ni Domicilio), con distintos
+ * tamaños de tabla.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindAllBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private PersonaDAO personaDao;
+
+    @Setup
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(rows);
+        personaDao = new PersonaDAO(new DomicilioDAO());
+    }
+
+    @Benchmark
+    public List<Persona> findAll() throws SQLException {
+        return personaDao.findAll();
+    }
+
+    @Benchmark
+    public List<PersonaNombre> findAllNombre() throws SQLException {
+        return personaDao.findAll(PersonaDAO.NOMBRE);
+    }
+
+    @Benchmark
+    public List<PersonaResumen> findAllResumen() throws SQLException {
+        return personaDao.findAll(PersonaDAO.RESUMEN);
+    }
+
+    @Benchmark
+    public long streamAll() throws SQLException {
+        try (Stream<Persona> personas = personaDao.streamAll()) {
+            return personas.mapToLong(Persona::getEdad).sum();
+        }
+    }
+}
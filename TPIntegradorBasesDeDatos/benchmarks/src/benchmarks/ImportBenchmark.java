@@ -0,0 +1,105 @@
+package benchmarks;
+
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import importer.CsvImporter;
+import importer.ImportResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import model.Domicilio;
+import model.Persona;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.PersonaService;
+
+/**
+ * Carga de un CSV de personas (con una dirección cada diez) con CsvImporter, con uno y con
+ * varios hilos de escritura, frente a lo que había antes: leer línea por línea y llamar a
+ * PersonaService.create por cada persona. Cada medición es una carga completa sobre una
+ * tabla recién cargada con 1000 personas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private Path csv;
+    private PersonaService service;
+    private CsvImporter importer;
+    private CsvImporter singleWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        csv = Files.createTempFile("personas", ".csv");
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("nombre,edad,localidad,provincia\n");
+            for (int i = 1; i <= rows; i++) {
+                int domicilio = i % (rows / 10);
+                out.write("Importada " + i + "," + (18 + i % 70) + ",Localidad " + domicilio + ",Provincia " + (domicilio % 24) + "\n");
+            }
+        }
+        PersonaDAO dao = new PersonaDAO(new DomicilioDAO());
+        service = new PersonaService(dao, null, null, null);
+        importer = new CsvImporter(dao);
+        singleWriter = new CsvImporter(dao);
+        singleWriter.setWriterThreads(1);
+    }
+
+    @Setup(Level.Iteration)
+    public void reload() throws SQLException {
+        EmbeddedDatabase.populate(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public ImportResult importCsv() throws IOException, SQLException {
+        return importer.importFile(csv);
+    }
+
+    @Benchmark
+    public ImportResult importCsvSingleWriter() throws IOException, SQLException {
+        return singleWriter.importFile(csv);
+    }
+
+    @Benchmark
+    public long createEach() throws IOException {
+        long created = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String[] fields = line.split(",");
+                service.create(new Persona(0, fields[0], Integer.parseInt(fields[1]), new Domicilio(0, fields[2], fields[3])));
+                created++;
+            }
+        }
+        return created;
+    }
+}
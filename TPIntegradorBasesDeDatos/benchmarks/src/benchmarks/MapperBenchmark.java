@@ -0,0 +1,100 @@
+package benchmarks;
+
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+import model.Persona;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo del mapeo de filas de PersonaDAO aislado de la base: el ResultSet es una tabla
+ * en memoria de H2 con las mismas columnas que devuelve el SELECT con JOIN de PersonaDAO.
+ * mapRow lee por posición con el plan de columnas ya resuelto, como en los recorridos;
+ * mapRowResolvingColumns además busca las columnas en los metadatos en cada fila.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private ExposedPersonaDAO dao;
+    private SimpleResultSet rs;
+    private int[] columns;
+
+    /**
+     * PersonaDAO con el mapeo a la vista; no toca la base.
+     */
+    static final class ExposedPersonaDAO extends PersonaDAO {
+        ExposedPersonaDAO() {
+            super(new DomicilioDAO());
+        }
+
+        int[] plan(ResultSet rs) throws SQLException {
+            return columnPlan(selectSql, rs);
+        }
+
+        Persona map(ResultSet rs, int[] columns) throws SQLException {
+            return mapRow(rs, columns);
+        }
+
+        Persona mapResolving(ResultSet rs) throws SQLException {
+            return mapResultSetToObject(rs);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        // El constructor de los DAO lee la configuración de DatabaseConnection.
+        EmbeddedDatabase.start();
+        dao = new ExposedPersonaDAO();
+        rs = new SimpleResultSet();
+        rs.setAutoClose(false); // permite volver al principio con beforeFirst()
+        rs.addColumn("id", Types.INTEGER, 10, 0);
+        rs.addColumn("nombre", Types.VARCHAR, 254, 0);
+        rs.addColumn("edad", Types.INTEGER, 10, 0);
+        rs.addColumn("id_domicilio", Types.INTEGER, 10, 0);
+        rs.addColumn("localidad", Types.VARCHAR, 254, 0);
+        rs.addColumn("provincia", Types.VARCHAR, 254, 0);
+        for (int i = 1; i <= ROWS; i++) {
+            rs.addRow(i, "Persona " + i, 18 + i % 70, 1 + i % 100, "Localidad " + i % 100, "Provincia " + i % 24);
+        }
+        columns = dao.plan(rs);
+    }
+
+    private void advance() throws SQLException {
+        if (!rs.next()) {
+            rs.beforeFirst();
+            rs.next();
+        }
+    }
+
+    @Benchmark
+    public Persona mapRow() throws SQLException {
+        advance();
+        return dao.map(rs, columns);
+    }
+
+    @Benchmark
+    public Persona mapRowResolvingColumns() throws SQLException {
+        advance();
+        return dao.mapResolving(rs);
+    }
+}
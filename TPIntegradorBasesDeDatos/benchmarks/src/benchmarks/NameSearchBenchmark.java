@@ -0,0 +1,108 @@
+package benchmarks;
+
+import cache.NameIndex;
+import dao.DomicilioDAO;
+import dao.NameMatch;
+import dao.Page;
+import dao.PersonaDAO;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.Persona;
+import model.PersonaNombre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.PersonaService;
+
+/**
+ * Búsquedas por nombre: existeNombre y searchByNombre sobre idx_persona_nombre,
+ * suggestNombres contra la base y contra el índice en memoria, y existeNombre de nombres
+ * que no existen con y sin el filtro de Bloom. Para medir sin el índice de la tabla,
+ * correr con -Dbench.migrations apuntando a una carpeta vacía.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private PersonaDAO personaDao;
+    private PersonaService service;
+    private PersonaService indexedService;
+    private PersonaService filteredService;
+
+    @Setup
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(rows);
+        personaDao = new PersonaDAO(new DomicilioDAO());
+        service = new PersonaService(personaDao, null, null, null);
+        indexedService = new PersonaService(personaDao, null, new NameIndex(), null);
+        indexedService.suggestNombres("Persona", 1);
+        filteredService = new PersonaService(personaDao, null, null, PersonaService.nameFilter(personaDao, 0.01));
+    }
+
+    // "Persona <n>" con n entre 1 y rows: una fila exacta, o unas rows / 100 por prefijo.
+    private String nombre() {
+        return "Persona " + ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    // Nombres que no están en la tabla: el caso común de una alta nueva.
+    private String missing() {
+        return "Nadie " + ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    private String prefix() {
+        return "Persona " + ThreadLocalRandom.current().nextInt(10, 100);
+    }
+
+    @Benchmark
+    public boolean existeNombre() throws SQLException {
+        return personaDao.existeNombre(nombre());
+    }
+
+    @Benchmark
+    public boolean existeNombreMissing() {
+        return service.existeNombre(missing());
+    }
+
+    @Benchmark
+    public boolean existeNombreMissingFiltered() {
+        return filteredService.existeNombre(missing());
+    }
+
+    @Benchmark
+    public Page<Persona> searchExact() {
+        return service.searchByNombre(nombre(), NameMatch.EXACT, null, 20);
+    }
+
+    @Benchmark
+    public Page<Persona> searchPrefix() {
+        return service.searchByNombre(prefix(), NameMatch.PREFIX, null, 20);
+    }
+
+    @Benchmark
+    public List<PersonaNombre> suggestFromTable() {
+        return service.suggestNombres(prefix(), 10);
+    }
+
+    @Benchmark
+    public List<PersonaNombre> suggestFromMemory() {
+        return indexedService.suggestNombres(prefix(), 10);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import dao.CachedDomicilioDAO;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import model.Domicilio;
+import model.Persona;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.PersonaService;
+
+/**
+ * PersonaService.create y update de punta a punta: validación, transacción, DAO y commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private PersonaService service;
+    private List<Persona> personas;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        service = new PersonaService(new PersonaDAO(PersonaService.isCacheConfigured() ? new CachedDomicilioDAO() : new DomicilioDAO()));
+    }
+
+    @Setup(Level.Iteration)
+    public void reload() throws SQLException {
+        EmbeddedDatabase.populate(ROWS);
+        personas = new ArrayList<>(service.findAll());
+    }
+
+    @Benchmark
+    public Persona create() {
+        return service.create(new Persona(0, "Nueva Persona", 30, new Domicilio(0, "Godoy Cruz", "Mendoza")));
+    }
+
+    @Benchmark
+    public Persona update() {
+        Persona persona = personas.get(ThreadLocalRandom.current().nextInt(personas.size()));
+        // Cambia solo la edad (siempre a otro valor): mide el UPDATE de una columna que arma el seguimiento de cambios.
+        persona.setEdad(persona.getEdad() >= 90 ? 18 : persona.getEdad() + 1);
+        return service.update(persona);
+    }
+}
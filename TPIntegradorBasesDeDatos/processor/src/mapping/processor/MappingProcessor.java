@@ -0,0 +1,656 @@
+package mapping.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Genera &lt;Entidad&gt;Mapping para cada clase anotada con mapping.Table: una clase final que
+ * implementa dao.EntityMapping con el SELECT (con los joins de las relaciones), el INSERT,
+ * un UPDATE por cada combinación de columnas, el mapeo de filas por posición y el bindeo
+ * de parámetros, todo escrito como código directo sobre los getters y el constructor de
+ * la entidad. En ejecución no queda reflexión ni SQL armado al iniciar.
+ *
+ * Las anotaciones se leen por nombre, así el procesador se compila sin las fuentes del
+ * proyecto. Las clases se generan en el paquete de la opción -Amapping.package (dao si no se indica).
+ */
+// Reclama todas las anotaciones que lee y la @Generated de sus propias clases, para que
+// javac -Xlint no avise que ningún procesador las reclamó.
+@SupportedAnnotationTypes({MappingProcessor.TABLE, MappingProcessor.ID, MappingProcessor.COLUMN,
+        MappingProcessor.RELATION, MappingProcessor.GENERATED})
+@SupportedOptions(MappingProcessor.PACKAGE_OPTION)
+public class MappingProcessor extends AbstractProcessor {
+
+    static final String TABLE = "mapping.Table";
+    static final String ID = "mapping.Id";
+    static final String COLUMN = "mapping.Column";
+    static final String RELATION = "mapping.Relation";
+    static final String GENERATED = "javax.annotation.processing.Generated";
+    static final String PACKAGE_OPTION = "mapping.package";
+
+    // Con más columnas la tabla de UPDATE por combinación se arma al cargar la clase.
+    private static final int MAX_LITERAL_UPDATE_COLUMNS = 6;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement table = processingEnv.getElementUtils().getTypeElement(TABLE);
+        if (table == null) {
+            return false;
+        }
+        String targetPackage = processingEnv.getOptions().getOrDefault(PACKAGE_OPTION, "dao");
+        for (Element element : roundEnv.getElementsAnnotatedWith(table)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error("@Table solo se puede usar en clases.", element);
+                continue;
+            }
+            try {
+                Entity entity = readEntity((TypeElement) element, true);
+                write(entity, targetPackage);
+            } catch (InvalidEntityException e) {
+                error(e.getMessage(), e.element);
+            } catch (IOException e) {
+                error("No se pudo escribir el mapeo: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // Lectura del modelo
+    // ---------------------------------------------------------------------------------
+
+    private enum Kind {
+        ID, COLUMN, RELATION
+    }
+
+    /**
+     * Tipo Java de una columna y cómo se lee y se bindea con JDBC.
+     */
+    private enum JdbcType {
+        INT("int", "getInt", "setInt", null),
+        LONG("long", "getLong", "setLong", null),
+        DOUBLE("double", "getDouble", "setDouble", null),
+        BOOLEAN("boolean", "getBoolean", "setBoolean", null),
+        STRING("java.lang.String", "getString", "setString", null),
+        BIG_DECIMAL("java.math.BigDecimal", "getBigDecimal", "setBigDecimal", null),
+        INTEGER_BOXED("java.lang.Integer", null, "setInt", "INTEGER"),
+        LONG_BOXED("java.lang.Long", null, "setLong", "BIGINT"),
+        DOUBLE_BOXED("java.lang.Double", null, "setDouble", "DOUBLE"),
+        BOOLEAN_BOXED("java.lang.Boolean", null, "setBoolean", "BOOLEAN"),
+        LOCAL_DATE("java.time.LocalDate", null, "setObject", "DATE");
+
+        final String javaType;
+        // null: se lee con getObject(i, Tipo.class).
+        final String getter;
+        final String setter;
+        // Tipo de java.sql.Types para setNull; null si el setter acepta null o el tipo es primitivo.
+        final String sqlNullType;
+
+        JdbcType(String javaType, String getter, String setter, String sqlNullType) {
+            this.javaType = javaType;
+            this.getter = getter;
+            this.setter = setter;
+            this.sqlNullType = sqlNullType;
+        }
+
+        static JdbcType of(TypeMirror type) {
+            String name = type.toString();
+            for (JdbcType jdbcType : values()) {
+                if (jdbcType.javaType.equals(name)) {
+                    return jdbcType;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Property {
+        final VariableElement field;
+        final Kind kind;
+        final String name;
+        final String column;
+        final String getter;
+        final JdbcType jdbcType;
+        final Entity target;
+        final boolean optional;
+
+        Property(VariableElement field, Kind kind, String column, String getter, JdbcType jdbcType, Entity target, boolean optional) {
+            this.field = field;
+            this.kind = kind;
+            this.name = field.getSimpleName().toString();
+            this.column = column;
+            this.getter = getter;
+            this.jdbcType = jdbcType;
+            this.target = target;
+            this.optional = optional;
+        }
+    }
+
+    private static final class Entity {
+        TypeElement type;
+        String qualifiedName;
+        String simpleName;
+        String table;
+        Property id;
+        // Todos los campos anotados en orden de declaración, que es el orden del constructor.
+        final List<Property> all = new ArrayList<>();
+        // Los mismos sin el ID: las columnas de INSERT y UPDATE.
+        final List<Property> columns = new ArrayList<>();
+        String idSetter;
+        boolean hasMarkClean;
+
+        boolean hasRelations() {
+            return columns.stream().anyMatch(p -> p.kind == Kind.RELATION);
+        }
+    }
+
+    private static final class InvalidEntityException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final transient Element element;
+
+        InvalidEntityException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    private Entity readEntity(TypeElement type, boolean allowRelations) throws InvalidEntityException {
+        AnnotationMirror table = annotation(type, TABLE);
+        if (table == null) {
+            throw new InvalidEntityException("La clase " + type.getQualifiedName() + " no está anotada con @Table.", type);
+        }
+        Entity entity = new Entity();
+        entity.type = type;
+        entity.qualifiedName = type.getQualifiedName().toString();
+        entity.simpleName = type.getSimpleName().toString();
+        entity.table = (String) value(table, "name");
+
+        List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            AnnotationMirror id = annotation(field, ID);
+            AnnotationMirror column = annotation(field, COLUMN);
+            AnnotationMirror relation = annotation(field, RELATION);
+            int count = (id != null ? 1 : 0) + (column != null ? 1 : 0) + (relation != null ? 1 : 0);
+            if (count == 0) {
+                continue;
+            }
+            if (count > 1) {
+                throw new InvalidEntityException("Un campo admite una sola de @Id, @Column y @Relation.", field);
+            }
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                throw new InvalidEntityException("Los campos mapeados no pueden ser static.", field);
+            }
+            String getter = findGetter(methods, field);
+            Property property;
+            if (id != null) {
+                if (field.asType().getKind() != TypeKind.INT) {
+                    throw new InvalidEntityException("El ID debe ser int.", field);
+                }
+                if (entity.id != null) {
+                    throw new InvalidEntityException("La entidad ya tiene un campo @Id.", field);
+                }
+                property = new Property(field, Kind.ID, columnName(id, field), getter, JdbcType.INT, null, false);
+                entity.id = property;
+            } else if (column != null) {
+                JdbcType jdbcType = JdbcType.of(field.asType());
+                if (jdbcType == null) {
+                    throw new InvalidEntityException("Tipo de columna no admitido: " + field.asType() + ".", field);
+                }
+                property = new Property(field, Kind.COLUMN, columnName(column, field), getter, jdbcType, null, false);
+                entity.columns.add(property);
+            } else {
+                if (!allowRelations) {
+                    throw new InvalidEntityException("Una entidad usada en @Relation no puede tener relaciones propias.", field);
+                }
+                if (field.asType().getKind() != TypeKind.DECLARED) {
+                    throw new InvalidEntityException("@Relation debe referenciar una clase anotada con @Table.", field);
+                }
+                TypeElement targetType = (TypeElement) ((DeclaredType) field.asType()).asElement();
+                Entity target = readEntity(targetType, false);
+                property = new Property(field, Kind.RELATION, (String) value(relation, "column"), getter, JdbcType.INT,
+                        target, (Boolean) value(relation, "optional"));
+                entity.columns.add(property);
+            }
+            entity.all.add(property);
+        }
+        if (entity.id == null) {
+            throw new InvalidEntityException("La entidad necesita un campo int anotado con @Id.", type);
+        }
+        if (entity.columns.isEmpty()) {
+            throw new InvalidEntityException("La entidad necesita al menos un campo con @Column o @Relation.", type);
+        }
+        if (entity.columns.size() > 31) {
+            throw new InvalidEntityException("Se admiten hasta 31 columnas además del ID.", type);
+        }
+        checkConstructor(entity);
+        entity.idSetter = "set" + capitalize(entity.id.name);
+        if (methods.stream().noneMatch(m -> isPublic(m) && m.getSimpleName().contentEquals(entity.idSetter)
+                && m.getParameters().size() == 1 && m.getParameters().get(0).asType().getKind() == TypeKind.INT)) {
+            throw new InvalidEntityException("Falta el método público " + entity.idSetter + "(int).", entity.id.field);
+        }
+        entity.hasMarkClean = methods.stream().anyMatch(m -> isPublic(m) && m.getSimpleName().contentEquals("markClean")
+                && m.getParameters().isEmpty());
+        return entity;
+    }
+
+    private String findGetter(List<ExecutableElement> methods, VariableElement field) throws InvalidEntityException {
+        String suffix = capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            boolean named = name.equals("get" + suffix)
+                    || (name.equals("is" + suffix) && field.asType().getKind() == TypeKind.BOOLEAN);
+            if (named && isPublic(method) && method.getParameters().isEmpty()
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return name;
+            }
+        }
+        throw new InvalidEntityException("Falta el getter público get" + suffix + "().", field);
+    }
+
+    private void checkConstructor(Entity entity) throws InvalidEntityException {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(entity.type.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (!isPublic(constructor) || parameters.size() != entity.all.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameters.size() && matches; i++) {
+                matches = processingEnv.getTypeUtils().isSameType(parameters.get(i).asType(), entity.all.get(i).field.asType());
+            }
+            if (matches) {
+                return;
+            }
+        }
+        StringBuilder expected = new StringBuilder();
+        for (Property property : entity.all) {
+            expected.append(expected.length() == 0 ? "" : ", ").append(property.field.asType()).append(' ').append(property.name);
+        }
+        throw new InvalidEntityException("Falta un constructor público " + entity.simpleName + "(" + expected
+                + ") con los campos anotados en orden de declaración.", entity.type);
+    }
+
+    private static boolean isPublic(Element element) {
+        return element.getModifiers().contains(Modifier.PUBLIC);
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String columnName(AnnotationMirror mirror, VariableElement field) {
+        String name = (String) value(mirror, "name");
+        return name == null || name.isEmpty() ? field.getSimpleName().toString() : name;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    // nombreCompleto -> NOMBRE_COMPLETO
+    private static String constantName(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // SQL
+    // ---------------------------------------------------------------------------------
+
+    private static String alias(String table, Set<String> used) {
+        String base = table.substring(0, 1).toLowerCase(Locale.ROOT);
+        String alias = base;
+        for (int i = 2; !used.add(alias); i++) {
+            alias = base + i;
+        }
+        return alias;
+    }
+
+    /**
+     * Arma el SELECT y asigna las etiquetas de cada columna. Sin relaciones no usa alias;
+     * con relaciones, una columna de la entidad relacionada que repite un nombre se renombra
+     * como relacion_columna.
+     */
+    private static String selectSql(Entity entity, List<String> labels, String[] qualifiedId) {
+        if (!entity.hasRelations()) {
+            StringBuilder sql = new StringBuilder("SELECT ");
+            for (Property property : entity.all) {
+                labels.add(property.column);
+                sql.append(labels.size() == 1 ? "" : ", ").append(property.column);
+            }
+            qualifiedId[0] = entity.id.column;
+            return sql.append(" FROM ").append(entity.table).toString();
+        }
+
+        Set<String> aliases = new HashSet<>();
+        String owner = alias(entity.table, aliases);
+        Set<String> usedLabels = new HashSet<>();
+        StringBuilder select = new StringBuilder("SELECT ");
+        StringBuilder joins = new StringBuilder();
+        for (Property property : entity.all) {
+            usedLabels.add(property.column.toLowerCase(Locale.ROOT));
+            labels.add(property.column);
+            select.append(labels.size() == 1 ? "" : ", ").append(owner).append('.').append(property.column);
+        }
+        for (Property relation : entity.columns) {
+            if (relation.kind != Kind.RELATION) {
+                continue;
+            }
+            String alias = alias(relation.target.table, aliases);
+            for (Property column : relation.target.columns) {
+                String label = column.column;
+                if (!usedLabels.add(label.toLowerCase(Locale.ROOT))) {
+                    label = relation.name + "_" + column.column;
+                    usedLabels.add(label.toLowerCase(Locale.ROOT));
+                }
+                labels.add(label);
+                select.append(", ").append(alias).append('.').append(column.column);
+                if (!label.equals(column.column)) {
+                    select.append(" AS ").append(label);
+                }
+            }
+            joins.append(relation.optional ? " LEFT JOIN " : " INNER JOIN ").append(relation.target.table).append(' ').append(alias)
+                    .append(" ON ").append(owner).append('.').append(relation.column)
+                    .append(" = ").append(alias).append('.').append(relation.target.id.column);
+        }
+        qualifiedId[0] = owner + "." + entity.id.column;
+        return select.append(" FROM ").append(entity.table).append(' ').append(owner).append(joins).toString();
+    }
+
+    private static String insertSql(Entity entity) {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (Property property : entity.columns) {
+            columns.append(columns.length() == 0 ? "" : ", ").append(property.column);
+            values.append(values.length() == 0 ? "?" : ", ?");
+        }
+        return "INSERT INTO " + entity.table + " (" + columns + ") VALUES (" + values + ")";
+    }
+
+    private static String updateSql(Entity entity, int mask) {
+        StringBuilder set = new StringBuilder();
+        for (int i = 0; i < entity.columns.size(); i++) {
+            if ((mask & (1 << i)) != 0) {
+                set.append(set.length() == 0 ? "" : ", ").append(entity.columns.get(i).column).append(" = ?");
+            }
+        }
+        return "UPDATE " + entity.table + " SET " + set + " WHERE " + entity.id.column + " = ?";
+    }
+
+    // ---------------------------------------------------------------------------------
+    // Código generado
+    // ---------------------------------------------------------------------------------
+
+    private void write(Entity entity, String targetPackage) throws IOException {
+        String className = entity.simpleName + "Mapping";
+        String type = entity.qualifiedName;
+        List<String> labels = new ArrayList<>();
+        String[] qualifiedId = new String[1];
+        String select = selectSql(entity, labels, qualifiedId);
+        int allColumns = (1 << entity.columns.size()) - 1;
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(targetPackage).append(";\n\n");
+        out.append("import java.sql.PreparedStatement;\n");
+        out.append("import java.sql.ResultSet;\n");
+        out.append("import java.sql.SQLException;\n");
+        out.append("import java.sql.Types;\n");
+        out.append("import ").append(GENERATED).append(";\n\n");
+        out.append("/**\n * Mapeo de ").append(type).append(" a la tabla ").append(entity.table)
+                .append(", generado por MappingProcessor a partir de sus anotaciones. No editar.\n */\n");
+        out.append("@Generated(\"").append(MappingProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(className).append(" implements EntityMapping<").append(type).append("> {\n\n");
+        out.append("    public static final ").append(className).append(" INSTANCE = new ").append(className).append("();\n\n");
+        out.append("    public static final String TABLE_NAME = ").append(literal(entity.table)).append(";\n");
+        out.append("    public static final String ID_COLUMN = ").append(literal(entity.id.column)).append(";\n");
+        out.append("    public static final String SELECT_SQL = ").append(literal(select)).append(";\n");
+        out.append("    public static final String QUALIFIED_ID_COLUMN = ").append(literal(qualifiedId[0])).append(";\n");
+        out.append("    public static final String INSERT_SQL = ").append(literal(insertSql(entity))).append(";\n\n");
+        out.append("    // Bits de las columnas para getUpdateSql y bindUpdate, en orden de declaración.\n");
+        for (int i = 0; i < entity.columns.size(); i++) {
+            out.append("    public static final int ").append(constantName(entity.columns.get(i).name))
+                    .append(" = ").append(1 << i).append(";\n");
+        }
+        out.append("    public static final int ALL_COLUMNS = ").append(allColumns).append(";\n\n");
+        out.append("    private static final String[] MAPPED_COLUMNS = {");
+        for (int i = 0; i < labels.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(literal(labels.get(i)));
+        }
+        out.append("};\n");
+        writeUpdateTable(out, entity, allColumns);
+        out.append("\n    private ").append(className).append("() {\n    }\n");
+
+        writeSimpleGetters(out, entity, type);
+        writeMapRow(out, entity, type);
+        writeBindInsert(out, entity, type);
+        writeUpdateMethods(out, entity, type);
+        writeIdAccessor(out, entity, type);
+        out.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(targetPackage + "." + className, entity.type).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private static void writeUpdateTable(StringBuilder out, Entity entity, int allColumns) {
+        if (entity.columns.size() <= MAX_LITERAL_UPDATE_COLUMNS) {
+            out.append("    // Índice: máscara de columnas.\n");
+            out.append("    private static final String[] UPDATE_SQL = {\n            null");
+            for (int mask = 1; mask <= allColumns; mask++) {
+                out.append(",\n            ").append(literal(updateSql(entity, mask)));
+            }
+            out.append("\n    };\n");
+            return;
+        }
+        out.append("    private static final String[] UPDATE_COLUMNS = {");
+        for (int i = 0; i < entity.columns.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(literal(entity.columns.get(i).column));
+        }
+        out.append("};\n");
+        out.append("    // Índice: máscara de columnas.\n");
+        out.append("    private static final String[] UPDATE_SQL = new String[ALL_COLUMNS + 1];\n\n");
+        out.append("    static {\n");
+        out.append("        for (int mask = 1; mask <= ALL_COLUMNS; mask++) {\n");
+        out.append("            StringBuilder set = new StringBuilder();\n");
+        out.append("            for (int i = 0; i < UPDATE_COLUMNS.length; i++) {\n");
+        out.append("                if ((mask & (1 << i)) != 0) {\n");
+        out.append("                    set.append(set.length() == 0 ? \"\" : \", \").append(UPDATE_COLUMNS[i]).append(\" = ?\");\n");
+        out.append("                }\n");
+        out.append("            }\n");
+        out.append("            UPDATE_SQL[mask] = \"UPDATE \" + TABLE_NAME + \" SET \" + set + \" WHERE \" + ID_COLUMN + \" = ?\";\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private static void writeSimpleGetters(StringBuilder out, Entity entity, String type) {
+        out.append("\n    @Override\n    public Class<").append(type).append("> getEntityClass() {\n");
+        out.append("        return ").append(type).append(".class;\n    }\n");
+        writeReturn(out, "String", "getTableName", "TABLE_NAME");
+        writeReturn(out, "String", "getIdColumn", "ID_COLUMN");
+        writeReturn(out, "String", "getSelectSql", "SELECT_SQL");
+        writeReturn(out, "String", "getQualifiedIdColumn", "QUALIFIED_ID_COLUMN");
+        writeReturn(out, "String[]", "getMappedColumns", "MAPPED_COLUMNS");
+        writeReturn(out, "String", "getInsertSql", "INSERT_SQL");
+        writeReturn(out, "int", "getAllColumns", "ALL_COLUMNS");
+    }
+
+    private static void writeReturn(StringBuilder out, String returnType, String method, String value) {
+        out.append("\n    @Override\n    public ").append(returnType).append(' ').append(method).append("() {\n");
+        out.append("        return ").append(value).append(";\n    }\n");
+    }
+
+    private static void writeMapRow(StringBuilder out, Entity entity, String type) {
+        out.append("\n    @Override\n    public ").append(type).append(" mapRow(ResultSet rs, int[] columns) throws SQLException {\n");
+        int position = 0;
+        List<String> arguments = new ArrayList<>();
+        for (Property property : entity.all) {
+            String variable = property.name + "Value";
+            if (property.kind != Kind.RELATION) {
+                out.append("        ").append(typeName(property.field.asType().toString())).append(' ').append(variable).append(" = ")
+                        .append(read(property.jdbcType, position++)).append(";\n");
+            } else {
+                // La clave foránea se lee acá; las columnas de la relación vienen al final del SELECT.
+                out.append("        int ").append(variable).append("Id = rs.getInt(columns[").append(position++).append("]);\n");
+                out.append("        boolean ").append(variable).append("Null = rs.wasNull();\n");
+            }
+            arguments.add(variable);
+        }
+        for (Property relation : entity.columns) {
+            if (relation.kind != Kind.RELATION) {
+                continue;
+            }
+            Entity target = relation.target;
+            String variable = relation.name + "Value";
+            List<String> targetArguments = new ArrayList<>();
+            for (Property property : target.all) {
+                if (property.kind == Kind.ID) {
+                    targetArguments.add(variable + "Id");
+                    continue;
+                }
+                String targetVariable = relation.name + capitalize(property.name);
+                out.append("        ").append(typeName(property.field.asType().toString())).append(' ').append(targetVariable).append(" = ")
+                        .append(read(property.jdbcType, position++)).append(";\n");
+                targetArguments.add(targetVariable);
+            }
+            out.append("        ").append(target.qualifiedName).append(' ').append(variable).append(" = ").append(variable)
+                    .append("Null ? null : new ").append(target.qualifiedName).append('(')
+                    .append(String.join(", ", targetArguments)).append(");\n");
+        }
+        out.append("        ").append(type).append(" entity = new ").append(type).append('(')
+                .append(String.join(", ", arguments)).append(");\n");
+        for (Property relation : entity.columns) {
+            if (relation.kind == Kind.RELATION && relation.target.hasMarkClean && !entity.hasMarkClean) {
+                out.append("        if (").append(relation.name).append("Value != null) {\n");
+                out.append("            ").append(relation.name).append("Value.markClean();\n        }\n");
+            }
+        }
+        if (entity.hasMarkClean) {
+            out.append("        entity.markClean();\n");
+        }
+        out.append("        return entity;\n    }\n");
+    }
+
+    private static String read(JdbcType jdbcType, int position) {
+        if (jdbcType.getter != null) {
+            return "rs." + jdbcType.getter + "(columns[" + position + "])";
+        }
+        return "rs.getObject(columns[" + position + "], " + typeName(jdbcType.javaType) + ".class)";
+    }
+
+    private static void writeBindInsert(StringBuilder out, Entity entity, String type) {
+        out.append("\n    @Override\n    public void bindInsert(PreparedStatement ps, ").append(type)
+                .append(" entity) throws SQLException {\n");
+        int index = 1;
+        for (Property property : entity.columns) {
+            writeBind(out, "        ", property, String.valueOf(index++));
+        }
+        out.append("    }\n");
+    }
+
+    private static void writeUpdateMethods(StringBuilder out, Entity entity, String type) {
+        out.append("\n    @Override\n    public String getUpdateSql(int columns) {\n");
+        out.append("        return UPDATE_SQL[columns];\n    }\n");
+        out.append("\n    @Override\n    public void bindUpdate(PreparedStatement ps, ").append(type)
+                .append(" entity, int columns) throws SQLException {\n");
+        out.append("        int index = 1;\n");
+        for (Property property : entity.columns) {
+            out.append("        if ((columns & ").append(constantName(property.name)).append(") != 0) {\n");
+            writeBind(out, "            ", property, "index++");
+            out.append("        }\n");
+        }
+        out.append("        ps.setInt(index, entity.").append(entity.id.getter).append("());\n    }\n");
+    }
+
+    private static void writeBind(StringBuilder out, String indent, Property property, String index) {
+        String value = "entity." + property.getter + "()";
+        if (property.kind == Kind.RELATION) {
+            String variable = property.name + "Value";
+            out.append(indent).append(property.target.qualifiedName).append(' ').append(variable)
+                    .append(" = ").append(value).append(";\n");
+            out.append(indent).append("if (").append(variable).append(" == null) {\n");
+            out.append(indent).append("    ps.setNull(").append(index).append(", Types.INTEGER);\n");
+            out.append(indent).append("} else {\n");
+            out.append(indent).append("    ps.setInt(").append(index).append(", ").append(variable).append('.')
+                    .append(property.target.id.getter).append("());\n");
+            out.append(indent).append("}\n");
+        } else if (property.jdbcType.sqlNullType != null) {
+            String variable = property.name + "Value";
+            out.append(indent).append(typeName(property.jdbcType.javaType)).append(' ').append(variable)
+                    .append(" = ").append(value).append(";\n");
+            out.append(indent).append("if (").append(variable).append(" == null) {\n");
+            out.append(indent).append("    ps.setNull(").append(index).append(", Types.").append(property.jdbcType.sqlNullType).append(");\n");
+            out.append(indent).append("} else {\n");
+            out.append(indent).append("    ps.").append(property.jdbcType.setter).append('(').append(index).append(", ")
+                    .append(variable).append(");\n");
+            out.append(indent).append("}\n");
+        } else {
+            out.append(indent).append("ps.").append(property.jdbcType.setter).append('(').append(index).append(", ")
+                    .append(value).append(");\n");
+        }
+    }
+
+    private static void writeIdAccessor(StringBuilder out, Entity entity, String type) {
+        out.append("\n    @Override\n    public int getId(").append(type).append(" entity) {\n");
+        out.append("        return entity.").append(entity.id.getter).append("();\n    }\n");
+        out.append("\n    @Override\n    public void setId(").append(type).append(" entity, int id) {\n");
+        out.append("        entity.").append(entity.idSetter).append("(id);\n    }\n");
+    }
+
+    // Los tipos de java.lang se escriben sin paquete.
+    private static String typeName(String qualifiedName) {
+        String simple = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        return qualifiedName.equals("java.lang." + simple) ? simple : qualifiedName;
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
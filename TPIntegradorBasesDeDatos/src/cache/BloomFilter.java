@@ -0,0 +1,139 @@
+package cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom de cadenas. mightContain nunca da falso para algo que se agregó; para
+ * algo que no se agregó da verdadero con probabilidad cercana a la pedida mientras no se
+ * supere la capacidad. No admite borrar.
+ *
+ * Los bits están en un AtomicLongArray, así put y mightContain se pueden llamar desde
+ * varios hilos sin locks.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    // Elementos agregados que encendieron al menos un bit: aproxima los distintos.
+    private final LongAdder added = new LongAdder();
+
+    /**
+     * @param capacity cantidad de elementos distintos para la que se dimensiona.
+     * @param falsePositiveRate probabilidad de falso positivo con capacity elementos (entre 0 y 1).
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad del filtro debe ser mayor a cero.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1: " + falsePositiveRate);
+        }
+        // m = -n ln p / (ln 2)^2 y k = m / n ln 2, los óptimos para n elementos y tasa p.
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max(1, (bits + 63) / 64);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El filtro pedido es demasiado grande: " + bits + " bits.");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= hashCount; i++) {
+            changed |= set(index(h1, h2, i));
+        }
+        if (changed) {
+            added.increment();
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Doble hashing (Kirsch y Mitzenmacher): h1 + i·h2 reemplaza a k funciones independientes.
+    private long index(int h1, int h2, int i) {
+        long combined = h1 + (long) i * h2;
+        return Math.floorMod(combined, bitCount);
+    }
+
+    private boolean set(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, con la mezcla final de MurmurHash3 para que
+    // las dos mitades que usa el doble hashing queden bien repartidas.
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e80bfc2b9L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Elementos distintos agregados, aproximado (dos que comparten todos sus bits cuentan uno).
+     */
+    public long getApproximateCount() {
+        return added.sum();
+    }
+
+    /**
+     * Tasa de falsos positivos esperada con lo agregado hasta ahora: (1 - e^(-k·n/m))^k.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) getApproximateCount() / bitCount), hashCount);
+    }
+
+    /**
+     * Si ya tiene más elementos que la capacidad con la que se creó.
+     */
+    public boolean isSaturated() {
+        return getApproximateCount() > capacity;
+    }
+}
@@ -0,0 +1,157 @@
+package cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache acotado en memoria con desalojo LRU y vencimiento por tiempo (TTL).
+ * Lleva contadores de aciertos, fallos, desalojos y vencimientos para poder medir
+ * cuánta carga le saca a la base de datos.
+ *
+ * @param <K> El tipo de la clave.
+ * @param <V> El tipo del valor.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize cantidad máxima de entradas; al superarla se desaloja la menos usada.
+     * @param ttlMillis tiempo de vida de cada entrada desde que se guarda; 0 para que no venzan.
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del cache debe ser mayor a cero.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor guardado, o null si no está o ya venció.
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = ttlNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : hitCount / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "LruCache {\n\ttamaño = " + size() + "/" + maxSize + "\n\taciertos = " + getHitCount()
+                + "\n\tfallos = " + getMissCount() + "\n\ttasa de aciertos = " + getHitRatio()
+                + "\n\tdesalojos = " + getEvictionCount() + "\n\tvencimientos = " + getExpirationCount() + "\n}\n";
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+    }
+}
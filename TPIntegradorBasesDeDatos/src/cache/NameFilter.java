@@ -0,0 +1,131 @@
+package cache;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Cache negativo de nombres de persona: un {@link BloomFilter} con los nombres existentes,
+ * para responder "no existe" sin ir a la base. Los nombres se normalizan como en
+ * {@link NameIndex}, así un nombre que la collation considera igual a uno existente
+ * siempre da "puede existir" y se confirma con SQL.
+ *
+ * El filtro se arma recorriendo la tabla con {@link #rebuild()} y después recibe con
+ * {@link #add(String)} los nombres que se confirman. Se dimensiona con margen sobre la
+ * cantidad de filas; cuando se llena se vuelve a armar en segundo plano, más grande. Los
+ * borrados no se reflejan hasta la reconstrucción: solo dejan positivos de más.
+ */
+public final class NameFilter {
+
+    public interface Source {
+        long count() throws SQLException;
+
+        /**
+         * Todos los nombres de la tabla; el stream se cierra al terminar.
+         */
+        Stream<String> names() throws SQLException;
+    }
+
+    private static final long MIN_CAPACITY = 1024;
+    // Capacidad sobre las filas actuales, para que el filtro no se llene enseguida.
+    private static final int GROWTH = 2;
+
+    private final Source source;
+    private final double falsePositiveRate;
+    // null hasta la primera construcción: mientras tanto todo nombre "puede existir".
+    private volatile BloomFilter current;
+    // El filtro que se está armando; también recibe los add para no perder lo confirmado durante el recorrido.
+    private volatile BloomFilter next;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public NameFilter(Source source, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1: " + falsePositiveRate);
+        }
+        this.source = source;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * false solo si el nombre seguro no está en la tabla.
+     */
+    public boolean mightContain(String nombre) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(NameIndex.normalize(nombre));
+    }
+
+    /**
+     * Registra un nombre confirmado. Debe llamarse después del commit: si se agregara antes,
+     * una reconstrucción que empieza en el medio podría no ver ni el add ni la fila.
+     */
+    public void add(String nombre) {
+        if (nombre == null) {
+            return;
+        }
+        String key = NameIndex.normalize(nombre);
+        // Primero next y después current: rebuild publica current antes de limpiar next,
+        // así un add concurrente con el cambio llega al filtro nuevo por uno de los dos.
+        BloomFilter building = next;
+        BloomFilter filter = current;
+        if (building != null) {
+            building.put(key);
+        }
+        if (filter != null) {
+            filter.put(key);
+            if (filter.isSaturated()) {
+                rebuildInBackground();
+            }
+        }
+    }
+
+    /**
+     * Arma un filtro nuevo recorriendo la tabla y lo reemplaza. Si ya hay una
+     * reconstrucción en curso no hace nada.
+     */
+    public void rebuild() throws SQLException {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            build();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void rebuildInBackground() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                build();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Advertencia: No se pudo reconstruir el filtro de nombres: " + e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "name-filter-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void build() throws SQLException {
+        long rows = source.count();
+        BloomFilter built = new BloomFilter(Math.max(MIN_CAPACITY, rows * GROWTH), falsePositiveRate);
+        next = built;
+        try (Stream<String> names = source.names()) {
+            names.forEach(nombre -> built.put(NameIndex.normalize(nombre)));
+            current = built;
+        } finally {
+            next = null;
+        }
+    }
+
+    /**
+     * El filtro en uso, o null si todavía no se armó.
+     */
+    public BloomFilter getFilter() {
+        return current;
+    }
+}
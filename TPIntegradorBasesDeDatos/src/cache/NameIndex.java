@@ -0,0 +1,185 @@
+package cache;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import model.PersonaNombre;
+
+/**
+ * Índice en memoria de los nombres de persona, ordenado, para autocompletar por prefijo
+ * sin ir a la base. Los nombres se comparan normalizados (ver {@link #normalize(String)}),
+ * como mínimo igual que la collation utf8mb4_general_ci de la columna, y a igual nombre por ID.
+ *
+ * Las lecturas no toman locks. Las escrituras se serializan entre sí y con el final de
+ * {@link #load(Loader)}; quien lo usa debe llamar a put y remove recién después del commit,
+ * como con los caches, para no publicar cambios que se revierten.
+ */
+public final class NameIndex {
+
+    @FunctionalInterface
+    public interface Loader {
+        Collection<PersonaNombre> load() throws SQLException;
+    }
+
+    private record Key(String nombre, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int cmp = nombre.compareTo(other.nombre);
+            return cmp != 0 ? cmp : Integer.compare(id, other.id);
+        }
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ConcurrentSkipListMap<Key, String> entries = new ConcurrentSkipListMap<>();
+    // Clave actual de cada ID, para sacar la anterior cuando cambia el nombre. Protegido por this.
+    private final Map<Integer, Key> keys = new HashMap<>();
+    // IDs escritos durante una carga: la fila que trae la carga puede ser más vieja. Protegido por this.
+    private final Set<Integer> touched = new HashSet<>();
+    private volatile boolean loaded;
+    private boolean loading;
+    // Cambia con cada carga e invalidación; una carga que termina con otro valor se descarta.
+    private int generation;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Carga el índice con las filas del loader. La consulta corre sin el lock, así las
+     * escrituras que se confirman mientras tanto no esperan; sus IDs conservan el valor
+     * escrito aunque la carga traiga otro. No hace nada si ya está cargado o cargándose.
+     */
+    public void load(Loader loader) throws SQLException {
+        int started;
+        synchronized (this) {
+            if (loaded || loading) {
+                return;
+            }
+            loading = true;
+            started = ++generation;
+            entries.clear();
+            keys.clear();
+            touched.clear();
+        }
+        Collection<PersonaNombre> rows = null;
+        try {
+            rows = loader.load();
+        } finally {
+            synchronized (this) {
+                if (generation == started) {
+                    if (rows != null) {
+                        for (PersonaNombre row : rows) {
+                            if (!touched.contains(row.id())) {
+                                add(row.id(), row.nombre());
+                            }
+                        }
+                        loaded = true;
+                    }
+                    loading = false;
+                    touched.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía el índice; la próxima {@link #load(Loader)} lo vuelve a leer entero. Se usa
+     * cuando no se sabe qué cambió, por ejemplo si un lote falló después de confirmar parte.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        loaded = false;
+        loading = false;
+        entries.clear();
+        keys.clear();
+        touched.clear();
+    }
+
+    public synchronized void put(int id, String nombre) {
+        if (!loaded && !loading) {
+            return;
+        }
+        if (loading) {
+            touched.add(id);
+        }
+        add(id, nombre);
+    }
+
+    public synchronized void remove(int id) {
+        if (!loaded && !loading) {
+            return;
+        }
+        if (loading) {
+            touched.add(id);
+        }
+        Key old = keys.remove(id);
+        if (old != null) {
+            entries.remove(old);
+        }
+    }
+
+    private void add(int id, String nombre) {
+        Key key = new Key(normalize(nombre), id);
+        Key old = keys.put(id, key);
+        entries.put(key, nombre);
+        if (old != null && !old.equals(key)) {
+            entries.remove(old);
+        }
+    }
+
+    /**
+     * Hasta limit nombres que empiezan con prefix, ordenados por nombre normalizado e ID.
+     */
+    public List<PersonaNombre> startingWith(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<PersonaNombre> result = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<Key, String> entry : entries.tailMap(new Key(from, Integer.MIN_VALUE)).entrySet()) {
+            if (result.size() == limit || !entry.getKey().nombre().startsWith(from)) {
+                break;
+            }
+            result.add(new PersonaNombre(entry.getKey().id(), entry.getValue()));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    /**
+     * Forma en que se comparan los nombres: sin espacios en los extremos, sin acentos ni
+     * diacríticos y con cada carácter plegado de a uno (mayúscula y después minúscula),
+     * con ß como s y todos los caracteres fuera del plano básico como uno solo.
+     *
+     * Tiene que unir al menos lo que utf8mb4_general_ci considera igual, porque NameFilter
+     * no puede dar falsos negativos: esa collation compara carácter por carácter, con ß
+     * igual a s, la ı sin punto igual a i y los emojis iguales entre sí. Unir de más solo
+     * cuesta alguna consulta. toLowerCase(Locale.ROOT) solo no alcanza, porque deja ß e ı
+     * distintas de s e i.
+     */
+    public static String normalize(String nombre) {
+        String stripped = MARKS.matcher(Normalizer.normalize(nombre.trim(), Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder key = new StringBuilder(stripped.length());
+        stripped.codePoints().forEach(c -> key.appendCodePoint(fold(c)));
+        return key.toString();
+    }
+
+    private static int fold(int c) {
+        if (c == 'ß' || c == 'ẞ') {
+            return 's';
+        }
+        if (Character.isSupplementaryCodePoint(c)) {
+            return 0xFFFD;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,243 @@
+package cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache concurrente y acotado, dividido en franjas (stripes) con su propio lock y su
+ * propio orden LRU, para que lecturas de claves distintas no compitan por un único lock.
+ *
+ * Para que una lectura de la base no publique un valor viejo sobre una escritura
+ * concurrente, cada franja lleva un sello que cambia con cada put o invalidate:
+ * el que carga toma {@link #stamp(Object)} antes de leer y publica con
+ * {@link #putIfUnchanged(Object, Object, long)}, que no hace nada si el sello cambió.
+ * Con un TTL, cada entrada vence a ese tiempo de guardada, para acotar cuánto dura un
+ * valor que cambió en la base sin pasar por quien usa el cache.
+ *
+ * @param <K> El tipo de la clave.
+ * @param <V> El tipo del valor.
+ */
+public class StripedCache<K, V> {
+
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejectedLoads = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Cache sin vencimiento.
+     */
+    public StripedCache(int maxSize, int concurrency) {
+        this(maxSize, concurrency, 0);
+    }
+
+    /**
+     * @param maxSize cantidad máxima aproximada de entradas, repartida entre las franjas.
+     * @param concurrency cantidad de franjas; se redondea a la potencia de dos siguiente.
+     * @param ttlMillis tiempo de vida de cada entrada desde que se guarda; 0 para que no venzan.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedCache(int maxSize, int concurrency, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del cache debe ser mayor a cero.");
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, maxSize)) * 2 - 1);
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+        this.mask = count - 1;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        int perStripe = Math.max(1, (maxSize + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(perStripe, evictions);
+        }
+    }
+
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                // Vencer no cambia el sello: quien cargue ahora trae el valor actual de la base.
+                stripe.entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Sello actual de la franja de la clave. Se toma antes de leer el valor de la base.
+     */
+    public long stamp(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return stripe.stamp;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Guarda un valor leído de la base solo si nadie escribió ni invalidó en la franja desde stamp.
+     */
+    public boolean putIfUnchanged(K key, V value, long stamp) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            if (stripe.stamp != stamp) {
+                rejectedLoads.increment();
+                return false;
+            }
+            stripe.entries.put(key, entry(value));
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Publica un valor ya confirmado en la base (write-through).
+     */
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.stamp++;
+            stripe.entries.put(key, entry(value));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.stamp++;
+            stripe.entries.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.stamp++;
+                stripe.entries.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Cantidad de valores leídos de la base que no se publicaron por una escritura concurrente.
+     */
+    public long getRejectedLoadCount() {
+        return rejectedLoads.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : hitCount / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "StripedCache {\n\tfranjas = " + stripes.length + "\n\ttamaño = " + size() + "\n\taciertos = " + getHitCount()
+                + "\n\tfallos = " + getMissCount() + "\n\ttasa de aciertos = " + getHitRatio()
+                + "\n\tdesalojos = " + getEvictionCount() + "\n\tvencimientos = " + getExpirationCount() + "\n\tcargas descartadas = " + getRejectedLoadCount() + "\n}\n";
+    }
+
+    private Entry<V> entry(V value) {
+        return new Entry<>(value, ttlNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + ttlNanos);
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    private static final class Stripe<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<K, Entry<V>> entries;
+        long stamp;
+
+        Stripe(int maxSize, LongAdder evictions) {
+            this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+    }
+}
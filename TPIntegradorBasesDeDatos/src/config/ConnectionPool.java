@@ -0,0 +1,484 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool acotado de conexiones JDBC. Las conexiones que entrega son proxies: close()
+ * las devuelve al pool en vez de cerrar la conexión física, así el contrato de
+ * Connection.close() que usan los DAO y servicios no cambia.
+ *
+ * Se configura con las claves DB_POOL_* del .env (ver {@link Config#fromSettings()}).
+ */
+public class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Una conexión usada hace menos de este tiempo no se vuelve a validar al pedirla.
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Parámetros del pool. Los tiempos están en milisegundos; 0 desactiva la opción.
+     */
+    public static final class Config {
+        public final int maxSize;
+        public final int minIdle;
+        public final long connectionTimeoutMs;
+        public final long idleTimeoutMs;
+        public final long maxLifetimeMs;
+        public final long leakDetectionThresholdMs;
+        public final int validationTimeoutSeconds;
+        public final long housekeepingIntervalMs;
+        public final int statementCacheSize;
+
+        public Config(int maxSize, int minIdle, long connectionTimeoutMs, long idleTimeoutMs, long maxLifetimeMs,
+                      long leakDetectionThresholdMs, int validationTimeoutSeconds, long housekeepingIntervalMs,
+                      int statementCacheSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("El tamaño máximo del pool debe ser mayor a cero.");
+            }
+            this.maxSize = maxSize;
+            this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+            this.connectionTimeoutMs = connectionTimeoutMs;
+            this.idleTimeoutMs = idleTimeoutMs;
+            this.maxLifetimeMs = maxLifetimeMs;
+            this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+            this.validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+            this.housekeepingIntervalMs = Math.max(1000, housekeepingIntervalMs);
+            this.statementCacheSize = Math.max(0, statementCacheSize);
+        }
+
+        public static Config fromSettings() {
+            return new Config(
+                    DatabaseConnection.getIntSetting("DB_POOL_MAX_SIZE", 10),
+                    DatabaseConnection.getIntSetting("DB_POOL_MIN_IDLE", 2),
+                    DatabaseConnection.getLongSetting("DB_POOL_CONNECTION_TIMEOUT_MS", 30_000),
+                    DatabaseConnection.getLongSetting("DB_POOL_IDLE_TIMEOUT_MS", 600_000),
+                    DatabaseConnection.getLongSetting("DB_POOL_MAX_LIFETIME_MS", 1_800_000),
+                    DatabaseConnection.getLongSetting("DB_POOL_LEAK_DETECTION_MS", 0),
+                    DatabaseConnection.getIntSetting("DB_POOL_VALIDATION_TIMEOUT_S", 5),
+                    DatabaseConnection.getLongSetting("DB_POOL_HOUSEKEEPING_MS", 30_000),
+                    DatabaseConnection.getIntSetting("DB_STATEMENT_CACHE_SIZE", 64));
+        }
+    }
+
+    private final Config config;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+
+    public ConnectionPool(Config config) {
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        fillMinIdle();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, config.housekeepingIntervalMs,
+                config.housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "connection-pool-shutdown"));
+    }
+
+    /**
+     * Toma una conexión del pool, esperando hasta DB_POOL_CONNECTION_TIMEOUT_MS si están todas en uso.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.increment();
+                throw new SQLTimeoutException("No se obtuvo una conexión del pool en " + config.connectionTimeoutMs
+                        + " ms (en uso: " + borrowed.size() + "/" + config.maxSize + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Se interrumpió la espera de una conexión del pool.", e);
+        }
+
+        PooledConnection pooled;
+        try {
+            pooled = takeOrCreate();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        long waited = System.nanoTime() - start;
+        borrowCount.increment();
+        borrowWaitNanos.add(waited);
+        maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+
+        pooled.borrowedAt = System.nanoTime();
+        pooled.leakReported = false;
+        pooled.borrowTrace = config.leakDetectionThresholdMs > 0
+                ? new Exception("Conexión tomada del pool por " + Thread.currentThread().getName())
+                : null;
+        borrowed.add(pooled);
+        return pooled.newHandle();
+    }
+
+    private PooledConnection takeOrCreate() throws SQLException {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                if (reserveSlot()) {
+                    return createConnection();
+                }
+                // Hay conexiones físicas ociosas que otro hilo está por liberar; se espera un momento.
+                try {
+                    pooled = idle.pollFirst(50, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Se interrumpió la espera de una conexión del pool.", e);
+                }
+                if (pooled == null) {
+                    continue;
+                }
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= config.maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Se llama con un lugar ya reservado en totalConnections.
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection physical = DatabaseConnection.openPhysicalConnection();
+            createdCount.increment();
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (pooled.isExpired(now)) {
+            return false;
+        }
+        if (now - pooled.lastReturnedAt < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(config.validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            boolean reusable = !shutdown && !pooled.isExpired(System.nanoTime()) && resetState(pooled.physical);
+            if (reusable) {
+                pooled.lastReturnedAt = System.nanoTime();
+                pooled.borrowTrace = null;
+                idle.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Deja la conexión como la entregaría DriverManager: sin transacción abierta y en autocommit.
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "No se pudo restablecer la conexión al devolverla al pool; se descarta.", e);
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.increment();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error al cerrar una conexión física del pool.", e);
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                boolean idleTooLong = config.idleTimeoutMs > 0
+                        && now - pooled.lastReturnedAt > TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMs)
+                        && totalConnections.get() > config.minIdle;
+                if ((idleTooLong || pooled.isExpired(now)) && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            if (config.leakDetectionThresholdMs > 0) {
+                long threshold = TimeUnit.MILLISECONDS.toNanos(config.leakDetectionThresholdMs);
+                for (PooledConnection pooled : borrowed) {
+                    if (!pooled.leakReported && now - pooled.borrowedAt > threshold) {
+                        pooled.leakReported = true;
+                        leakCount.increment();
+                        LOGGER.log(Level.WARNING, "Posible fuga de conexión: lleva más de "
+                                + config.leakDetectionThresholdMs + " ms sin devolverse al pool.", pooled.borrowTrace);
+                    }
+                }
+            }
+
+            fillMinIdle();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error en el mantenimiento del pool de conexiones.", e);
+        }
+    }
+
+    private void fillMinIdle() {
+        while (!shutdown && idle.size() < config.minIdle && reserveSlot()) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastReturnedAt = System.nanoTime();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "No se pudo abrir una conexión mínima del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cierra las conexiones ociosas y detiene el mantenimiento. Las conexiones en uso
+     * se cierran cuando sus dueños las devuelven.
+     */
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    public int getMaxSize() {
+        return config.maxSize;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0.0 : borrowWaitNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.sum();
+    }
+
+    public long getCreatedConnections() {
+        return createdCount.sum();
+    }
+
+    public long getDestroyedConnections() {
+        return destroyedCount.sum();
+    }
+
+    public long getLeaksDetected() {
+        return leakCount.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementStats.hits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementStats.misses.sum();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementStats.evictions.sum();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = getStatementCacheHits();
+        long total = hits + getStatementCacheMisses();
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool {\n\ttotal = " + getTotalConnections() + "\n\tactivas = " + getActiveConnections()
+                + "\n\tociosas = " + getIdleConnections() + "\n\tesperando = " + getThreadsAwaitingConnection()
+                + "\n\tpréstamos = " + getBorrowCount() + "\n\tespera promedio (ms) = " + getAverageBorrowWaitMillis()
+                + "\n\tespera máxima (ms) = " + getMaxBorrowWaitMillis() + "\n\ttimeouts = " + getBorrowTimeouts()
+                + "\n\tfugas = " + getLeaksDetected() + "\n\tstatements en cache (aciertos/fallos) = "
+                + getStatementCacheHits() + "/" + getStatementCacheMisses() + "\n}\n";
+    }
+
+    /**
+     * Conexión física administrada por el pool.
+     */
+    final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final long createdAt = System.nanoTime();
+        volatile long lastReturnedAt = System.nanoTime();
+        volatile long borrowedAt;
+        volatile boolean leakReported;
+        volatile Exception borrowTrace;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = config.statementCacheSize > 0
+                    ? new StatementCache(physical, config.statementCacheSize, statementStats)
+                    : null;
+        }
+
+        boolean isExpired(long now) {
+            return config.maxLifetimeMs > 0 && now - createdAt > TimeUnit.MILLISECONDS.toNanos(config.maxLifetimeMs);
+        }
+
+        // Cada préstamo recibe un proxy nuevo para que un close() repetido o tardío no afecte al siguiente dueño.
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle(this));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            release(pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (closed ? ", devuelta" : "") + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("La conexión ya fue devuelta al pool.");
+                    }
+            }
+            if (pooled.statements != null && method.getName().equals("prepareStatement")) {
+                if (args.length == 1) {
+                    return pooled.statements.prepare((Connection) proxy, (String) args[0], null);
+                }
+                if (args.length == 2 && args[1] instanceof Integer) {
+                    return pooled.statements.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
-package config; 
+package config;
 import io.github.cdimascio.dotenv.Dotenv;
 import io.github.cdimascio.dotenv.DotenvException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import metrics.DataLayerMetrics;
+import metrics.JdbcInstrumentation;
 public class DatabaseConnection {
 
     private static String URL;
     private static String USER;
     private static String PASSWORD;
+    private static Dotenv DOTENV;
+    private static ConnectionPool POOL;
+    private static JdbcInstrumentation INSTRUMENTATION;
 
     static {
         //Con estos valores se accede a la BD local, se pueden modificar acá o en el .env de ser necesario.
@@ -18,6 +23,7 @@ public class DatabaseConnection {
 
         try {
             Dotenv dotenv = Dotenv.load();
+            DOTENV = dotenv;
             String dbUrl = dotenv.get("DB_URL");
             if (dbUrl != null && !dbUrl.isEmpty()) {
                 URL = dbUrl;
@@ -53,19 +59,124 @@ public class DatabaseConnection {
             System.out.println("DatabaseConnection: Usando valores cargados o por defecto: URL=" + URL + ", USER=" + USER);
         }
 
+        // Las propiedades de sistema (-DDB_URL=...) tienen prioridad, igual que en getSetting.
+        // Así los benchmarks apuntan a una base embebida sin tocar el .env.
+        URL = System.getProperty("DB_URL", URL);
+        USER = System.getProperty("DB_USER", USER);
+        PASSWORD = System.getProperty("DB_USER_PASSWORD", PASSWORD);
+
+        String driver = getSetting("DB_DRIVER", "com.mysql.cj.jdbc.Driver");
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            Class.forName(driver);
             System.out.println("DatabaseConnection: Driver JDBC cargado correctamente.");
         } catch (ClassNotFoundException e) {
-            throw new RuntimeException("DatabaseConnection: Excepción fatal: No se encontró el driver JDBC de MySQL. Asegúrate de tener 'mysql-connector-java' en tus dependencias (classpath).", e);
+            throw new RuntimeException("DatabaseConnection: Excepción fatal: No se encontró el driver JDBC " + driver + ". Asegúrate de tener 'mysql-connector-java' (o el driver configurado en DB_DRIVER) en tus dependencias (classpath).", e);
         }
 
         if (URL == null || URL.isEmpty() || USER == null || USER.isEmpty() || PASSWORD == null) {
             throw new RuntimeException("DatabaseConnection: Error fatal: La configuración de la base de datos es incompleta o inválida después de todos los intentos de carga. (URL, USER, PASSWORD).");
         }
+
+        // Se envuelve la conexión física, así el pool y su cache de statements guardan los statements ya medidos.
+        if (getBooleanSetting("DB_JDBC_INSTRUMENTATION", false)) {
+            INSTRUMENTATION = new JdbcInstrumentation(DataLayerMetrics.getInstance(), getLongSetting("DB_SLOW_QUERY_MS", 500));
+            System.out.println("DatabaseConnection: Instrumentación JDBC activada (consultas lentas desde " + getLongSetting("DB_SLOW_QUERY_MS", 500) + " ms).");
+        }
+
+        // El pool se activa con DB_POOL_ENABLED=true; sin esa clave cada getConnection() abre una conexión nueva como antes.
+        if (getBooleanSetting("DB_POOL_ENABLED", false)) {
+            POOL = new ConnectionPool(ConnectionPool.Config.fromSettings());
+            System.out.println("DatabaseConnection: Pool de conexiones activado (máximo " + POOL.getMaxSize() + " conexiones).");
+        }
     }
 
+    /**
+     * Devuelve una conexión a la BD. Con el pool activado la conexión se toma del pool
+     * y close() la devuelve en lugar de cerrarla, así que los llamadores no cambian.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Connection conn = POOL != null ? POOL.getConnection() : openPhysicalConnection();
+            failed = false;
+            return conn;
+        } finally {
+            DataLayerMetrics.getInstance().recordConnectionAcquisition(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Abre una conexión física nueva con DriverManager, sin pasar por el pool.
+     */
+    static Connection openPhysicalConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(URL, USER, PASSWORD);
+        return INSTRUMENTATION == null ? physical : INSTRUMENTATION.wrap(physical);
+    }
+
+    /**
+     * Devuelve el pool activo, o null si las conexiones no se reutilizan.
+     */
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    /**
+     * Busca una clave de configuración en este orden: propiedad de sistema (-DCLAVE=valor),
+     * archivo .env y variables de entorno. Devuelve defaultValue si no está en ninguno.
+     */
+    public static String getSetting(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if ((value == null || value.isEmpty()) && DOTENV != null) {
+            value = DOTENV.get(key);
+        }
+        if (value == null || value.isEmpty()) {
+            value = System.getenv(key);
+        }
+        return (value == null || value.isEmpty()) ? defaultValue : value.trim();
+    }
+
+    public static int getIntSetting(String key, int defaultValue) {
+        String value = getSetting(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("DatabaseConnection: Advertencia: El valor de " + key + " no es un número válido (" + value + "). Se usa " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
+    public static long getLongSetting(String key, long defaultValue) {
+        String value = getSetting(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("DatabaseConnection: Advertencia: El valor de " + key + " no es un número válido (" + value + "). Se usa " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
+    public static double getDoubleSetting(String key, double defaultValue) {
+        String value = getSetting(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            System.err.println("DatabaseConnection: Advertencia: El valor de " + key + " no es un número válido (" + value + "). Se usa " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBooleanSetting(String key, boolean defaultValue) {
+        String value = getSetting(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
     }
-}
\ No newline at end of file
+}
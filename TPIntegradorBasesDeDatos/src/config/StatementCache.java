@@ -0,0 +1,245 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de PreparedStatement de una conexión física del pool, indexado por el texto SQL.
+ * Los statements que entrega son proxies: close() limpia los parámetros, vuelve a los
+ * valores con que se creó lo que se haya cambiado con setFetchSize, setMaxRows y similares,
+ * y los deja disponibles para el próximo prepareStatement con el mismo SQL en esa conexión.
+ * Si se usó algo que no se puede deshacer (setCursorName, closeOnCompletion) el statement
+ * se cierra en lugar de volver al cache.
+ */
+final class StatementCache {
+
+    /**
+     * Contadores compartidos por todos los caches de un pool.
+     */
+    static final class Stats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Stats stats;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection physical, int maxSize, Stats stats) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Devuelve un statement para el SQL dado. autoGeneratedKeys es el mismo parámetro de
+     * Connection.prepareStatement(String, int), o null si se llamó sin él.
+     */
+    synchronized PreparedStatement prepare(Connection owner, String sql, Integer autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + "|" + sql;
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            stats.hits.increment();
+            entry.inUse = true;
+            return entry.newHandle(owner);
+        }
+        stats.misses.increment();
+        PreparedStatement statement = autoGeneratedKeys == null
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // El mismo SQL ya está abierto en esta conexión (por ejemplo, en una consulta anidada):
+            // se entrega un statement aparte que se cierra normalmente.
+            Entry detached = new Entry(key, statement, false);
+            detached.inUse = true;
+            return detached.newHandle(owner);
+        }
+        entry = new Entry(key, statement, true);
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictIfNeeded();
+        return entry.newHandle(owner);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.cached = false;
+            stats.evictions.increment();
+            if (!eldest.inUse) {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private synchronized void giveBack(Entry entry) {
+        if (!entry.cached) {
+            closeQuietly(entry.statement);
+            entry.inUse = false;
+            return;
+        }
+        if (entry.discard) {
+            entries.remove(entry.key);
+            entry.cached = false;
+            closeQuietly(entry.statement);
+            entry.inUse = false;
+            return;
+        }
+        try {
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+            entry.statement.clearWarnings();
+            if (entry.modified) {
+                entry.restoreDefaults();
+            }
+            entry.inUse = false;
+        } catch (SQLException e) {
+            entries.remove(entry.key);
+            entry.cached = false;
+            closeQuietly(entry.statement);
+        }
+    }
+
+    synchronized void closeAll() {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            e.getValue().cached = false;
+            closeQuietly(e.getValue().statement);
+        }
+        entries.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // El statement se descarta de todos modos.
+        }
+    }
+
+    private final class Entry {
+        final String key;
+        final PreparedStatement statement;
+        boolean cached;
+        boolean inUse;
+        // Algún préstamo cambió una opción del statement que giveBack tiene que restaurar.
+        boolean modified;
+        // Algún préstamo cambió algo que no se puede restaurar: giveBack lo cierra.
+        boolean discard;
+        // Valores con que el driver creó el statement.
+        private final int fetchSize;
+        private final int fetchDirection;
+        private final long maxRows;
+        private final int maxFieldSize;
+        private final int queryTimeout;
+
+        Entry(String key, PreparedStatement statement, boolean cached) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.cached = cached;
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxRows = statement.getLargeMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        void restoreDefaults() throws SQLException {
+            // Primero maxRows: el driver rechaza un fetchSize mayor que el maxRows vigente.
+            statement.setLargeMaxRows(maxRows);
+            statement.setFetchSize(fetchSize);
+            statement.setFetchDirection(fetchDirection);
+            statement.setMaxFieldSize(maxFieldSize);
+            statement.setQueryTimeout(queryTimeout);
+            // No tiene getter; el valor por defecto de JDBC es true.
+            statement.setEscapeProcessing(true);
+            modified = false;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Handle(this, owner));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed;
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (entry.statement.getResultSet() != null) {
+                            entry.statement.getResultSet().close();
+                        }
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("El statement ya fue cerrado.");
+                    }
+                    trackOption(method.getName());
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Las opciones del statement sobreviven a close(): se anotan para que no las herede el próximo préstamo.
+        private void trackOption(String name) {
+            switch (name) {
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setMaxFieldSize":
+                case "setQueryTimeout":
+                case "setEscapeProcessing":
+                    entry.modified = true;
+                    break;
+                case "setCursorName":
+                case "closeOnCompletion":
+                case "setPoolable":
+                    entry.discard = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package config;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transacción ligada al hilo actual. La abre y la cierra service.TransactionManager;
+ * los DAO solo la consultan con {@link #currentConnection()} para usar la misma conexión
+ * en lugar de pedir una nueva, y registran con {@link #runAfterCommit(Runnable)} lo que
+ * debe esperar a que los cambios queden confirmados (por ejemplo, invalidar caches).
+ */
+public final class TransactionContext {
+
+    private static final ThreadLocal<TransactionContext> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final boolean readOnly;
+    private final TransactionContext suspended;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> afterRollback = new ArrayList<>();
+    private boolean rollbackOnly;
+    private Throwable rollbackCause;
+
+    private TransactionContext(Connection connection, boolean readOnly, TransactionContext suspended) {
+        this.connection = connection;
+        this.readOnly = readOnly;
+        this.suspended = suspended;
+    }
+
+    /**
+     * Liga una transacción nueva al hilo. Si ya había una, queda suspendida hasta {@link #unbind()}.
+     */
+    public static TransactionContext bind(Connection connection, boolean readOnly) {
+        TransactionContext context = new TransactionContext(connection, readOnly, CURRENT.get());
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Desliga la transacción actual y reactiva la que estaba suspendida, si había una.
+     */
+    public void unbind() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Solo se puede desligar la transacción activa del hilo.");
+        }
+        if (suspended == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(suspended);
+        }
+    }
+
+    public static TransactionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Conexión de la transacción activa del hilo, o null si no hay ninguna.
+     * Quien la recibe no debe cerrarla ni hacer commit o rollback.
+     */
+    public static Connection currentConnection() {
+        TransactionContext context = CURRENT.get();
+        return context == null ? null : context.connection;
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción activa se confirme (se descarta si hace rollback).
+     * Sin transacción activa se ejecuta en el momento.
+     */
+    public static void runAfterCommit(Runnable action) {
+        TransactionContext context = CURRENT.get();
+        if (context == null) {
+            action.run();
+        } else {
+            context.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Ejecuta la acción si la transacción activa termina en rollback, para deshacer cambios
+     * hechos en memoria (por ejemplo, un ID generado que no llegó a confirmarse).
+     * Sin transacción activa no hace nada: lo escrito ya quedó confirmado.
+     */
+    public static void runAfterRollback(Runnable action) {
+        TransactionContext context = CURRENT.get();
+        if (context != null) {
+            context.afterRollback.add(action);
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Marca la transacción para que termine en rollback aunque el código que la abrió
+     * no vea la excepción (por ejemplo, si una operación anidada falló y alguien la atrapó).
+     */
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    /**
+     * Igual que {@link #setRollbackOnly()}, guardando el primer error que la provocó.
+     */
+    public void setRollbackOnly(Throwable cause) {
+        this.rollbackOnly = true;
+        if (rollbackCause == null) {
+            rollbackCause = cause;
+        }
+    }
+
+    public Throwable getRollbackCause() {
+        return rollbackCause;
+    }
+
+    public List<Runnable> getAfterCommitActions() {
+        return afterCommit;
+    }
+
+    public List<Runnable> getAfterRollbackActions() {
+        return afterRollback;
+    }
+}
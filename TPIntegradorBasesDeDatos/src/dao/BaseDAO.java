@@ -1,44 +1,228 @@
 package dao;
 
 import config.DatabaseConnection;
+import config.TransactionContext;
 import java.lang.System.Logger.Level;
 import java.sql.*;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import service.TransactionManager;
 
 public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
 
-    protected Connection connection;
     protected Class<T> entityClass;
     protected String tableName;
     protected String idColumnName;
+    // SQL armado una sola vez por DAO. selectSql es la consulta base sin WHERE y
+    // qualifiedIdColumn es la columna ID tal como se referencia dentro de ella.
+    protected final String selectSql;
+    protected final String qualifiedIdColumn;
+    protected final String selectByIdSql;
+    protected final String deleteByIdSql;
+    protected final String existeNombreSql;
+    protected final String countSql;
+    protected final String firstPageSql;
+    protected final String pageAfterSql;
+    protected final String lastPageSql;
+    protected final String pageBeforeSql;
+    protected final IdAccessor<T> idAccessor;
+    // Tamaños fijos de IN (...) para findAllByIds: pocas formas de SQL que el cache de statements reutiliza.
+    protected static final int[] IN_LIST_SHAPES = {1, 8, 32, 128};
+    protected final String[] selectByIdsSql;
+    protected int batchSize = DatabaseConnection.getIntSetting("DB_BATCH_SIZE", 500);
+    protected int fetchSize = DatabaseConnection.getIntSetting("DB_FETCH_SIZE", 1000);
+    // Posiciones de getMappedColumns() por SQL; se resuelven una vez por forma de consulta.
+    private final ConcurrentHashMap<String, int[]> columnPlans = new ConcurrentHashMap<>();
 
     public BaseDAO(Class<T> entityClass, String tableName, String idColumnName) {
+        this(entityClass, tableName, idColumnName, IdAccessor.forProperty(entityClass, idColumnName));
+    }
+
+    public BaseDAO(Class<T> entityClass, String tableName, String idColumnName, IdAccessor<T> idAccessor) {
+        this(entityClass, tableName, idColumnName, "SELECT * FROM " + tableName, idColumnName, idAccessor);
+    }
+
+    /**
+     * DAO sobre un mapeo generado (ver mapping.Table): toma de él la tabla, el SELECT y el
+     * acceso al ID. La subclase delega el mapeo de filas y el bindeo en el mismo mapeo.
+     */
+    protected BaseDAO(EntityMapping<T> mapping) {
+        this(mapping.getEntityClass(), mapping.getTableName(), mapping.getIdColumn(), mapping.getSelectSql(),
+                mapping.getQualifiedIdColumn(), mapping);
+    }
+
+    protected BaseDAO(Class<T> entityClass, String tableName, String idColumnName, String selectSql, String qualifiedIdColumn,
+                      IdAccessor<T> idAccessor) {
         this.entityClass = entityClass;
+        this.idAccessor = idAccessor;
         this.tableName = tableName;
         this.idColumnName = idColumnName;
-        try {
-            this.connection = DatabaseConnection.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error al obtener la conexión a la base de datos: " + e.getMessage());
-            throw new RuntimeException("No se pudo establecer la conexión a la base de datos.", e);
+        this.selectSql = selectSql;
+        this.qualifiedIdColumn = qualifiedIdColumn;
+        this.selectByIdSql = selectSql + " WHERE " + qualifiedIdColumn + " = ?";
+        this.deleteByIdSql = "DELETE FROM " + tableName + " WHERE " + idColumnName + " = ?";
+        this.existeNombreSql = "SELECT COUNT(*) FROM " + tableName + " WHERE nombre = ?";
+        this.countSql = "SELECT COUNT(*) FROM " + tableName;
+        this.firstPageSql = selectSql + " ORDER BY " + qualifiedIdColumn + " LIMIT ?";
+        this.pageAfterSql = selectSql + " WHERE " + qualifiedIdColumn + " > ? ORDER BY " + qualifiedIdColumn + " LIMIT ?";
+        this.lastPageSql = selectSql + " ORDER BY " + qualifiedIdColumn + " DESC LIMIT ?";
+        this.pageBeforeSql = selectSql + " WHERE " + qualifiedIdColumn + " < ? ORDER BY " + qualifiedIdColumn + " DESC LIMIT ?";
+        this.selectByIdsSql = new String[IN_LIST_SHAPES.length];
+        for (int i = 0; i < IN_LIST_SHAPES.length; i++) {
+            StringBuilder sql = new StringBuilder(selectSql).append(" WHERE ").append(qualifiedIdColumn).append(" IN (?");
+            for (int j = 1; j < IN_LIST_SHAPES[i]; j++) {
+                sql.append(", ?");
+            }
+            selectByIdsSql[i] = sql.append(")").toString();
+        }
+    }
+
+    /**
+     * Devuelve la conexión de la transacción activa del hilo (ver service.TransactionManager)
+     * o, si no hay ninguna, una conexión nueva del pool. En ambos casos se libera con
+     * closeResources, que no cierra la conexión de la transacción.
+     */
+    protected Connection acquireConnection() throws SQLException {
+        Connection bound = TransactionContext.currentConnection();
+        return bound != null ? bound : DatabaseConnection.getConnection();
+    }
+
+    /**
+     * Columnas que lee mapRow, en el orden de las posiciones que recibe.
+     */
+    protected abstract String[] getMappedColumns();
+
+    /**
+     * Arma la entidad de la fila actual. columns[i] es la posición en el ResultSet de la
+     * columna getMappedColumns()[i], así el lazo por fila lee por índice y no por nombre.
+     */
+    protected abstract T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+    /**
+     * Mapea una sola fila resolviendo las posiciones en los metadatos del ResultSet.
+     * Para consultas que se repiten conviene columnPlan(sql, rs), que las guarda.
+     */
+    protected T mapResultSetToObject(ResultSet rs) throws SQLException {
+        return mapRow(rs, resolveColumns(rs.getMetaData()));
+    }
+
+    /**
+     * Posiciones de las columnas mapeadas en el resultado de sql. La primera vez se buscan
+     * por nombre en los metadatos del ResultSet; las siguientes se reutilizan.
+     */
+    protected int[] columnPlan(String sql, ResultSet rs) throws SQLException {
+        int[] plan = columnPlans.get(sql);
+        if (plan == null) {
+            plan = resolveColumns(rs.getMetaData());
+            columnPlans.putIfAbsent(sql, plan);
         }
+        return plan;
+    }
+
+    private int[] resolveColumns(ResultSetMetaData metaData) throws SQLException {
+        String[] names = getMappedColumns();
+        int[] plan = new int[names.length];
+        int count = metaData.getColumnCount();
+        for (int column = 1; column <= count; column++) {
+            String label = metaData.getColumnLabel(column);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(label)) {
+                    if (plan[i] != 0) {
+                        throw new SQLException("La columna '" + names[i] + "' aparece más de una vez en la consulta de " + tableName + "; falta un alias.");
+                    }
+                    plan[i] = column;
+                }
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (plan[i] == 0) {
+                throw new SQLException("La consulta de " + tableName + " no devuelve la columna '" + names[i] + "'.");
+            }
+        }
+        return plan;
+    }
+
+    protected abstract String getInsertSql();
+    protected abstract void bindInsert(PreparedStatement ps, T entity) throws SQLException;
+    protected abstract String getUpdateSql();
+    protected abstract void bindUpdate(PreparedStatement ps, T entity) throws SQLException;
+
+    // Se ejecutan antes de bindear cada entidad, por ejemplo para persistir entidades asociadas.
+    protected void beforeInsert(Connection conn, T entity) throws SQLException {
+    }
+
+    protected void beforeUpdate(Connection conn, T entity) throws SQLException {
+    }
+
+    protected PreparedStatement prepareStatementForInsert(Connection conn, T entity) throws SQLException {
+        beforeInsert(conn, entity);
+        PreparedStatement ps = conn.prepareStatement(getInsertSql(), PreparedStatement.RETURN_GENERATED_KEYS);
+        bindInsert(ps, entity);
+        return ps;
+    }
+
+    protected PreparedStatement prepareStatementForUpdate(Connection conn, T entity) throws SQLException {
+        beforeUpdate(conn, entity);
+        PreparedStatement ps = conn.prepareStatement(getUpdateSql());
+        bindUpdate(ps, entity);
+        return ps;
     }
 
-    protected abstract T mapResultSetToObject(ResultSet rs) throws SQLException;
-    protected abstract PreparedStatement prepareStatementForInsert(Connection conn, T entity) throws SQLException;
-    protected abstract PreparedStatement prepareStatementForUpdate(Connection conn, T entity) throws SQLException;
+    /**
+     * Indica si la entidad tiene algo que escribir. Los DAO con seguimiento de cambios lo
+     * sobrescriben para que una actualización sin cambios no llegue a la base.
+     */
+    public boolean hasChanges(T entity) {
+        return true;
+    }
+
+    // Se llama cuando la entidad quedó escrita, para que los DAO limpien sus marcas de cambios.
+    protected void markPersisted(T entity) {
+    }
+
+    // Dentro de una transacción las marcas se limpian recién al confirmar: si hace rollback
+    // (y TransactionManager la reintenta) la entidad sigue teniendo cambios por escribir.
+    private void persisted(T entity) {
+        TransactionContext.runAfterCommit(() -> markPersisted(entity));
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a cero.");
+        }
+        this.batchSize = batchSize;
+    }
 
     @Override
     public T create(T entity) throws SQLException {
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            pstmt = prepareStatementForInsert(connection, entity);
+            conn = acquireConnection();
+            pstmt = prepareStatementForInsert(conn, entity);
             int affectedRows = pstmt.executeUpdate();
 
             if (affectedRows == 0) {
@@ -47,20 +231,16 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
 
             try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    try {
-                        Method setIdMethod = entityClass.getMethod("set" + capitalize(idColumnName), int.class);
-                        setIdMethod.invoke(entity, generatedKeys.getInt(1));
-                    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                        System.err.println("Advertencia: No se pudo establecer el ID generado en el objeto. " + e.getMessage());
-                    }
+                    assignGeneratedId(entity, generatedKeys.getInt(1));
                 }
             }
+            persisted(entity);
             return entity;
         } catch (SQLException e) {
             System.err.println("Error al crear la entidad: " + e.getMessage());
             throw e; 
         } finally {
-            closeResources(pstmt, rs, null); 
+            closeResources(pstmt, rs, conn); 
         }
     }
 
@@ -76,13 +256,9 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
 
             generatedKeys = ps.getGeneratedKeys();
             if (generatedKeys.next()) {
-                try {
-                    Method setIdMethod = entity.getClass().getMethod("set" + capitalize(idColumnName), int.class);
-                    setIdMethod.invoke(entity, generatedKeys.getInt(1));
-                } catch (Exception e) { 
-                    System.err.println("Advertencia: No se pudo establecer el ID generado en el objeto después de la inserción transaccional. " + e.getMessage());
-                }
+                assignGeneratedId(entity, generatedKeys.getInt(1));
             }
+            persisted(entity);
             return entity; 
         } finally {
             closeResources(ps, generatedKeys, null); 
@@ -91,16 +267,18 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
 
     @Override
     public Optional<T> read(ID id) throws SQLException { 
-        String sql = "SELECT * FROM " + tableName + " WHERE " + idColumnName + " = ?";
+        String sql = selectByIdSql;
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            pstmt = connection.prepareStatement(sql);
+            conn = acquireConnection();
+            pstmt = conn.prepareStatement(sql);
             pstmt.setObject(1, id);
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(mapResultSetToObject(rs));
+                return Optional.of(mapRow(rs, columnPlan(sql, rs)));
             } else {
                 return Optional.empty();
             }
@@ -108,21 +286,27 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
             System.err.println("Error al leer la entidad con ID " + id + ": " + e.getMessage());
             throw e; 
         } finally {
-            closeResources(pstmt, rs, null); 
+            closeResources(pstmt, rs, conn); 
         }
     }
 
     @Override
     public T update(T entity) throws SQLException { // Non-transactional method, manages its own connection
+        if (!hasChanges(entity)) {
+            return entity;
+        }
         PreparedStatement pstmt = null;
         Connection localConn = null;
         try {
-            localConn = DatabaseConnection.getConnection();
+            localConn = acquireConnection();
             pstmt = prepareStatementForUpdate(localConn, entity);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("La actualización de la entidad falló, no se encontró el ID o no se modificaron datos.");
+            if (pstmt != null) {
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("La actualización de la entidad falló, no se encontró el ID o no se modificaron datos.");
+                }
             }
+            persisted(entity);
             return entity;
         } catch (SQLException e) {
             System.err.println("Error al actualizar la entidad (no-transaccional): " + e.getMessage());
@@ -132,14 +316,25 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
         }
     }
 
+    /**
+     * Actualiza la entidad dentro de la transacción del llamador. Si no tiene cambios no
+     * ejecuta nada; si prepareStatementForUpdate devuelve null (solo cambiaron entidades
+     * asociadas) no se escribe la tabla propia.
+     */
     public T update(Connection conn, T entity) throws SQLException {
+        if (!hasChanges(entity)) {
+            return entity;
+        }
         PreparedStatement ps = null;
         try {
             ps = prepareStatementForUpdate(conn, entity);
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("La actualización de la entidad falló, no se encontró el ID o no se modificaron datos.");
+            if (ps != null) {
+                int affectedRows = ps.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("La actualización de la entidad falló, no se encontró el ID o no se modificaron datos.");
+                }
             }
+            persisted(entity);
             return entity; 
         } finally {
             closeResources(ps, null, null); 
@@ -148,10 +343,12 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
 
     @Override
     public void delete(ID id) throws SQLException { 
-        String sql = "DELETE FROM " + tableName + " WHERE " + idColumnName + " = ?";
+        String sql = deleteByIdSql;
+        Connection conn = null;
         PreparedStatement pstmt = null;
         try {
-            pstmt = connection.prepareStatement(sql);
+            conn = acquireConnection();
+            pstmt = conn.prepareStatement(sql);
             pstmt.setObject(1, id);
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
@@ -161,17 +358,20 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
             System.err.println("Error al eliminar la entidad con ID " + id + ": " + e.getMessage());
             throw e; 
         } finally {
-            closeResources(pstmt, null, null); 
+            closeResources(pstmt, null, conn); 
         }
     }
 
-    public void delete(Connection conn, Integer id) throws SQLException {
+    /**
+     * Borra por ID sobre la conexión recibida y devuelve las filas borradas (0 si no existía).
+     */
+    public int delete(Connection conn, Integer id) throws SQLException {
         PreparedStatement ps = null;
-        String sql = "DELETE FROM " + tableName + " WHERE " + idColumnName + " = ?";
+        String sql = deleteByIdSql;
         try {
             ps = conn.prepareStatement(sql);
             ps.setInt(1, id);
-            ps.executeUpdate();
+            return ps.executeUpdate();
         } catch (SQLException e) {
             System.err.println("No se pudo borrar el elemento por ID.");
             throw e; 
@@ -180,18 +380,288 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
         }
     }
 
+    @Override
+    public List<T> createAll(Collection<T> entities) throws SQLException {
+        List<T> list = new ArrayList<>(entities);
+        runInChunks("createAll", list, (conn, chunk) -> insertAll(conn, chunk).size());
+        return list;
+    }
+
+    @Override
+    public List<T> updateAll(Collection<T> entities) throws SQLException {
+        List<T> list = new ArrayList<>(entities);
+        runInChunks("updateAll", list, (conn, chunk) -> updateAll(conn, chunk).size());
+        return list;
+    }
+
+    @Override
+    public int deleteAll(Collection<ID> ids) throws SQLException {
+        return runInChunks("deleteAll", new ArrayList<>(ids), this::deleteAll);
+    }
+
+    /**
+     * Inserta las entidades con un único executeBatch sobre la conexión recibida y
+     * asigna a cada una su ID generado. No hace commit: la transacción es del llamador.
+     */
+    public List<T> insertAll(Connection conn, List<T> entities) throws SQLException {
+        return insertBatch(conn, entities, true);
+    }
+
+    /**
+     * Igual que {@link #insertAll(Connection, List)}, pero permite omitir beforeInsert
+     * cuando el llamador ya resolvió las entidades asociadas.
+     */
+    protected List<T> insertBatch(Connection conn, List<T> entities, boolean runBeforeInsert) throws SQLException {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        PreparedStatement ps = null;
+        ResultSet generatedKeys = null;
+        try {
+            ps = conn.prepareStatement(getInsertSql(), PreparedStatement.RETURN_GENERATED_KEYS);
+            for (T entity : entities) {
+                if (runBeforeInsert) {
+                    beforeInsert(conn, entity);
+                }
+                bindInsert(ps, entity);
+                ps.addBatch();
+            }
+            checkBatchResult(ps.executeBatch(), "La inserción en lote falló, no se afectaron filas.");
+
+            generatedKeys = ps.getGeneratedKeys();
+            Iterator<T> it = entities.iterator();
+            while (it.hasNext() && generatedKeys.next()) {
+                assignGeneratedId(it.next(), generatedKeys.getInt(1));
+            }
+            entities.forEach(this::persisted);
+            return entities;
+        } finally {
+            closeResources(ps, generatedKeys, null);
+        }
+    }
+
+    /**
+     * Actualiza en lote las entidades que tienen cambios; las demás se omiten. El lote usa
+     * el UPDATE completo de getUpdateSql() para que todas compartan el mismo statement.
+     */
+    public List<T> updateAll(Connection conn, List<T> entities) throws SQLException {
+        List<T> changed = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            if (hasChanges(entity)) {
+                changed.add(entity);
+            }
+        }
+        if (changed.isEmpty()) {
+            return entities;
+        }
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(getUpdateSql());
+            for (T entity : changed) {
+                beforeUpdate(conn, entity);
+                bindUpdate(ps, entity);
+                ps.addBatch();
+            }
+            checkBatchResult(ps.executeBatch(), "La actualización en lote falló, no se encontró el ID de alguna entidad.");
+            changed.forEach(this::persisted);
+            return entities;
+        } finally {
+            closeResources(ps, null, null);
+        }
+    }
+
+    public int deleteAll(Connection conn, List<ID> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = deleteByIdSql;
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(sql);
+            for (ID id : ids) {
+                ps.setObject(1, id);
+                ps.addBatch();
+            }
+            int deleted = 0;
+            for (int count : ps.executeBatch()) {
+                // SUCCESS_NO_INFO (-2) indica que el driver no informó filas, se cuenta como borrada.
+                deleted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+            return deleted;
+        } finally {
+            closeResources(ps, null, null);
+        }
+    }
+
+    private void checkBatchResult(int[] counts, String message) throws SQLException {
+        for (int count : counts) {
+            if (count == 0 || count == Statement.EXECUTE_FAILED) {
+                throw new SQLException(message);
+            }
+        }
+    }
+
+    /**
+     * Divide la lista en lotes de batchSize elementos y ejecuta cada uno con
+     * TransactionManager.required: sin transacción activa cada lote abre la suya (con los
+     * reintentos de la política) y, si falla, se revierte solo ese lote; los anteriores quedan
+     * confirmados. Dentro de una transacción activa los lotes se ejecutan en ella y el commit
+     * queda a cargo de quien la abrió. En ambos casos las acciones posteriores al commit y
+     * al rollback (marcar persistido, restaurar IDs) corren como en las escrituras de a una.
+     *
+     * @return la suma de lo que devuelve operation para cada lote
+     */
+    protected <E> int runInChunks(String operationName, List<E> items, ChunkOperation<E> operation) throws SQLException {
+        String name = entityClass.getSimpleName() + "." + operationName;
+        int total = 0;
+        for (int from = 0; from < items.size(); from += batchSize) {
+            List<E> chunk = items.subList(from, Math.min(from + batchSize, items.size()));
+            try {
+                // Se suma después de cada lote confirmado, así un reintento no cuenta dos veces.
+                total += TransactionManager.required(name, conn -> operation.apply(conn, chunk));
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Error en el lote que comienza en la posición " + from + " de " + tableName + ": " + e.getMessage());
+                throw e;
+            }
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    protected interface ChunkOperation<E> {
+        int apply(Connection conn, List<E> chunk) throws SQLException;
+    }
+
+    /**
+     * Recorre la tabla sin cargarla entera en memoria. Con useCursorFetch=true en la URL
+     * (ver .env) MySQL usa un cursor del servidor y entrega fetchSize filas por viaje; con
+     * fetchSize &lt;= 0 se usa el modo de streaming fila a fila del driver.
+     * El Stream retiene la conexión hasta que se cierra, así que debe usarse con try-with-resources.
+     */
+    @Override
+    public Stream<T> streamAll() throws SQLException {
+        return stream(selectSql);
+    }
+
+    protected Stream<T> stream(String sql) throws SQLException {
+        return openStream(sql, rs -> {
+            int[] columns = columnPlan(sql, rs);
+            return row -> mapRow(row, columns);
+        });
+    }
+
+    /**
+     * Recorre todas las filas de la proyección, igual que {@link #streamAll()}.
+     */
+    public <R> Stream<R> streamAll(Projection<R> projection) throws SQLException {
+        return openStream(projection.getSelectSql(), rs -> projection::read);
+    }
+
+    // Arma el lector de filas una vez abierto el ResultSet (por ejemplo, para resolver las columnas).
+    @FunctionalInterface
+    private interface RowReaderFactory<R> {
+        Projection.RowReader<R> forResult(ResultSet rs) throws SQLException;
+    }
+
+    private <R> Stream<R> openStream(String sql, RowReaderFactory<R> readers) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        Projection.RowReader<R> reader;
+        try {
+            conn = acquireConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+            rs = pstmt.executeQuery();
+            reader = readers.forResult(rs);
+        } catch (SQLException e) {
+            System.err.println("Error al abrir el recorrido de " + tableName + ": " + e.getMessage());
+            closeResources(pstmt, rs, conn);
+            throw e;
+        }
+
+        final Connection streamConn = conn;
+        final PreparedStatement streamStmt = pstmt;
+        final ResultSet streamRs = rs;
+        Spliterator<R> rows = new Spliterators.AbstractSpliterator<R>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                try {
+                    if (!streamRs.next()) {
+                        return false;
+                    }
+                    action.accept(reader.read(streamRs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error de SQL al recorrer las entidades de " + tableName + ".", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeResources(streamStmt, streamRs, streamConn));
+    }
+
+    /**
+     * Recibe las filas de {@link #scan(RowVisitor)} directamente del ResultSet.
+     */
+    public interface RowVisitor {
+        /**
+         * Se llama una vez, antes de la primera fila (también si no hay filas).
+         */
+        void start(ResultSetMetaData metaData) throws SQLException;
+
+        void row(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Recorre la consulta base con un cursor, como streamAll, pero entrega el ResultSet
+     * posicionado en cada fila en lugar de armar entidades: para volcados que no deben
+     * retener ni crear nada por fila. Devuelve la cantidad de filas recorridas.
+     */
+    public long scan(RowVisitor visitor) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            pstmt = conn.prepareStatement(selectSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+            rs = pstmt.executeQuery();
+            visitor.start(rs.getMetaData());
+            long rows = 0;
+            while (rs.next()) {
+                visitor.row(rs);
+                rows++;
+            }
+            return rows;
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer las filas de " + tableName + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(pstmt, rs, conn);
+        }
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     public List<T> findAll() throws SQLException {
         List<T> entities = new ArrayList<>();
-        String sql = "SELECT * FROM " + tableName;
+        String sql = selectSql;
         Connection conn = null; 
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = acquireConnection();
             pstmt = conn.prepareStatement(sql);
             rs = pstmt.executeQuery();
+            int[] columns = columnPlan(sql, rs);
             while (rs.next()) {
-                entities.add(mapResultSetToObject(rs));
+                entities.add(mapRow(rs, columns));
             }
         } catch (SQLException e) {
             System.err.println("Error de SQL al listar todas las entidades de " + tableName + ": " + e.getMessage());
@@ -205,15 +675,171 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
         return entities;
     }
 
+    /**
+     * Página de hasta limit entidades con ID mayor a afterId, en orden ascendente.
+     * Con afterId null devuelve la primera página.
+     */
+    public Page<T> findPage(Integer afterId, int limit) throws SQLException {
+        return queryPage(afterId == null ? firstPageSql : pageAfterSql, afterId, limit, false);
+    }
+
+    /**
+     * Página de hasta limit entidades con ID menor a beforeId, en orden descendente.
+     * Con beforeId null empieza por las entidades más nuevas.
+     */
+    public Page<T> findPageReverse(Integer beforeId, int limit) throws SQLException {
+        return queryPage(beforeId == null ? lastPageSql : pageBeforeSql, beforeId, limit, true);
+    }
+
+    /**
+     * Continúa el recorrido a partir del token de una página anterior, en el mismo sentido.
+     *
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public Page<T> continuePage(String token, int limit) throws SQLException {
+        int lastId = Page.lastIdOf(token);
+        return Page.isReverse(token) ? findPageReverse(lastId, limit) : findPage(lastId, limit);
+    }
+
+    private Page<T> queryPage(String sql, Integer boundId, int limit, boolean reverse) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero.");
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 1000) + 1);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(sql);
+            int index = 1;
+            if (boundId != null) {
+                ps.setInt(index++, boundId);
+            }
+            // Se pide una fila de más para saber si hay otra página sin hacer un COUNT.
+            ps.setInt(index, limit + 1);
+            rs = ps.executeQuery();
+            int[] columns = columnPlan(sql, rs);
+            while (rs.next()) {
+                items.add(mapRow(rs, columns));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al paginar las entidades de " + tableName + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+
+        String nextToken = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            nextToken = Page.encodeToken(reverse, idAccessor.getId(items.get(limit - 1)));
+        }
+        return new Page<>(items, nextToken);
+    }
+
+    /**
+     * Todas las filas de la proyección, sin armar entidades.
+     */
+    public <R> List<R> findAll(Projection<R> projection) throws SQLException {
+        List<R> rows = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(projection.getSelectSql());
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                rows.add(projection.read(rs));
+            }
+            return rows;
+        } catch (SQLException e) {
+            System.err.println("Error de SQL al listar " + projection.getName() + " de " + tableName + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+    }
+
+    public <R> Optional<R> read(Projection<R> projection, ID id) throws SQLException {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(projection.getSelectByIdSql());
+            ps.setObject(1, id);
+            rs = ps.executeQuery();
+            return rs.next() ? Optional.of(projection.read(rs)) : Optional.empty();
+        } catch (SQLException e) {
+            System.err.println("Error al leer " + projection.getName() + " con ID " + id + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+    }
+
+    /**
+     * Página de la proyección en orden ascendente de ID, igual que {@link #findPage(Integer, int)}.
+     * El token de la página se continúa con {@link #continuePage(Projection, String, int)}.
+     */
+    public <R> Page<R> findPage(Projection<R> projection, Integer afterId, int limit) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero.");
+        }
+        List<R> items = new ArrayList<>(Math.min(limit, 1000) + 1);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(afterId == null ? projection.getFirstPageSql() : projection.getPageAfterSql());
+            int index = 1;
+            if (afterId != null) {
+                ps.setInt(index++, afterId);
+            }
+            ps.setInt(index, limit + 1);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                items.add(projection.read(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al paginar " + projection.getName() + " de " + tableName + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+
+        String nextToken = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            nextToken = Page.encodeToken(false, projection.idOf(items.get(limit - 1)));
+        }
+        return new Page<>(items, nextToken);
+    }
+
+    /**
+     * Continúa una página de la proyección. Las proyecciones solo se recorren en orden ascendente.
+     *
+     * @throws IllegalArgumentException si el token no es válido o es de un recorrido inverso.
+     */
+    public <R> Page<R> continuePage(Projection<R> projection, String token, int limit) throws SQLException {
+        if (Page.isReverse(token)) {
+            throw new IllegalArgumentException("Las proyecciones no admiten el recorrido inverso.");
+        }
+        return findPage(projection, Page.lastIdOf(token), limit);
+    }
+
     public T findByID(ID id) throws SQLException { 
-        String sql = "SELECT * FROM " + tableName + " WHERE " + idColumnName + " = ?";
+        String sql = selectByIdSql;
         Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         T entity = null;
 
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = acquireConnection();
             ps = conn.prepareStatement(sql);
             if (id instanceof Integer) {
                 ps.setInt(1, (Integer) id);
@@ -222,7 +848,7 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
             }
             rs = ps.executeQuery();
             if (rs.next()) {
-                entity = mapResultSetToObject(rs);
+                entity = mapRow(rs, columnPlan(sql, rs));
             }
         } catch (SQLException e) {
             throw e;
@@ -232,12 +858,99 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
         return entity;
     }
 
+    /**
+     * Busca varias entidades por ID con consultas IN (...) de tamaño acotado. Los IDs se
+     * agrupan en bloques de los tamaños de IN_LIST_SHAPES; el último bloque se completa
+     * repitiendo un ID para reutilizar la misma forma de SQL. El mapa respeta el orden de
+     * los IDs pedidos y no incluye los que no existen.
+     */
+    @Override
+    public Map<ID, T> findAllByIds(Collection<ID> ids) throws SQLException {
+        List<ID> pending = new ArrayList<>(new LinkedHashSet<>(ids));
+        pending.removeIf(Objects::isNull);
+        Map<ID, T> result = new LinkedHashMap<>();
+        if (pending.isEmpty()) {
+            return result;
+        }
+
+        Map<ID, T> found = new HashMap<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            int largest = IN_LIST_SHAPES.length - 1;
+            for (int from = 0; from < pending.size(); ) {
+                int remaining = pending.size() - from;
+                int shape = largest;
+                for (int i = 0; i < IN_LIST_SHAPES.length; i++) {
+                    if (IN_LIST_SHAPES[i] >= remaining) {
+                        shape = i;
+                        break;
+                    }
+                }
+                int size = IN_LIST_SHAPES[shape];
+                int taken = Math.min(size, remaining);
+
+                ps = conn.prepareStatement(selectByIdsSql[shape]);
+                for (int i = 0; i < size; i++) {
+                    ps.setObject(i + 1, pending.get(from + Math.min(i, taken - 1)));
+                }
+                rs = ps.executeQuery();
+                int[] columns = columnPlan(selectByIdsSql[shape], rs);
+                while (rs.next()) {
+                    T entity = mapRow(rs, columns);
+                    found.put(idOf(entity), entity);
+                }
+                closeResources(ps, rs, null);
+                ps = null;
+                rs = null;
+                from += taken;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar varias entidades de " + tableName + " por ID: " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+
+        for (ID id : pending) {
+            T entity = found.get(id);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cantidad de filas de la tabla.
+     */
+    public long count() throws SQLException {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(countSql);
+            rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error al contar las filas de " + tableName + ": " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+    }
+
     public boolean existeNombre(String nombre) throws SQLException { // Added throws SQLException
-        String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE nombre = ?";
+        String sql = existeNombreSql;
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            pstmt = connection.prepareStatement(sql);
+            conn = acquireConnection();
+            pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, nombre);
             rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -249,7 +962,7 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
             System.err.println("Error al verificar la existencia del nombre '" + nombre + "' en la tabla " + tableName + ": " + e.getMessage());
             throw e; 
         } finally {
-            closeResources(pstmt, rs, null);
+            closeResources(pstmt, rs, conn);
         }
     }
 
@@ -257,16 +970,27 @@ public abstract class BaseDAO<T, ID> implements GenericDAO<T, ID> {
         try {
             if (rs != null) rs.close();
             if (stmt != null) stmt.close();
-            if (conn != null) conn.close(); 
+            // La conexión de una transacción activa la cierra TransactionManager.
+            if (conn != null && conn != TransactionContext.currentConnection()) conn.close(); 
         } catch (SQLException e) {
             System.err.println("Error al cerrar recursos JDBC: " + e.getMessage());
         }
     }
 
-    private String capitalize(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
-        }
-        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    /**
+     * El ID de la entidad con el tipo ID del DAO, para compararlo con los IDs pedidos (ver
+     * findAllByIds). Por defecto viene de idAccessor, que lee IDs enteros: un DAO con otro
+     * tipo de ID tiene que sobrescribirlo.
+     */
+    @SuppressWarnings("unchecked")
+    protected ID idOf(T entity) {
+        return (ID) Integer.valueOf(idAccessor.getId(entity));
+    }
+
+    protected void assignGeneratedId(T entity, int id) {
+        int previous = idAccessor.getId(entity);
+        idAccessor.setId(entity, id);
+        // Si la transacción no confirma, la fila no existe: la entidad vuelve a ser nueva.
+        TransactionContext.runAfterRollback(() -> idAccessor.setId(entity, previous));
     }
 }
\ No newline at end of file
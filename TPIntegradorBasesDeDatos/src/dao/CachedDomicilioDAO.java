@@ -0,0 +1,199 @@
+package dao;
+
+import cache.LruCache;
+import config.DatabaseConnection;
+import config.TransactionContext;
+import model.Domicilio;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * DomicilioDAO con un cache de lectura delante: read y findByID consultan primero el
+ * cache y solo van a la base si el domicilio no está. Toda escritura que pasa por este
+ * DAO (incluidas las que hace PersonaDAO en cascada) invalida la entrada afectada.
+ * Dentro de una transacción de TransactionManager la entrada se invalida de nuevo al
+ * confirmar o al revertir, y las lecturas no guardan nada en el cache: la conexión de la
+ * transacción ve cambios que todavía pueden revertirse. Fuera de ella, una lectura
+ * concurrente con una transacción de otro hilo todavía sin confirmar puede volver a
+ * cachear el valor anterior y el TTL acota cuánto dura ese caso.
+ *
+ * Se configura con DB_DOMICILIO_CACHE_SIZE, DB_DOMICILIO_CACHE_TTL_MS y DB_DOMICILIO_CACHE_PRELOAD.
+ */
+public class CachedDomicilioDAO extends DomicilioDAO {
+    private final LruCache<Integer, Domicilio> cache;
+
+    public CachedDomicilioDAO() {
+        this(DatabaseConnection.getIntSetting("DB_DOMICILIO_CACHE_SIZE", 1000),
+             DatabaseConnection.getLongSetting("DB_DOMICILIO_CACHE_TTL_MS", 300_000));
+        if (DatabaseConnection.getBooleanSetting("DB_DOMICILIO_CACHE_PRELOAD", true)) {
+            try {
+                preload();
+            } catch (SQLException e) {
+                System.err.println("Advertencia: No se pudo precargar el cache de domicilios: " + e.getMessage());
+            }
+        }
+    }
+
+    public CachedDomicilioDAO(int maxSize, long ttlMillis) {
+        super();
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Carga la tabla en el cache recorriéndola con un cursor, hasta llenar su capacidad.
+     */
+    public int preload() throws SQLException {
+        int loaded = 0;
+        try (Stream<Domicilio> domicilios = streamAll()) {
+            for (Domicilio domicilio : (Iterable<Domicilio>) domicilios.limit(cache.getMaxSize())::iterator) {
+                cache.put(domicilio.getId(), new Domicilio(domicilio));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    public LruCache<Integer, Domicilio> getCache() {
+        return cache;
+    }
+
+    // El cache guarda copias y entrega copias, para que modificar un Domicilio leído no altere lo cacheado.
+    @Override
+    public Optional<Domicilio> read(Integer id) throws SQLException {
+        Domicilio cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of(new Domicilio(cached));
+        }
+        Optional<Domicilio> loaded = super.read(id);
+        loaded.ifPresent(d -> cacheLoaded(id, d));
+        return loaded;
+    }
+
+    @Override
+    public Domicilio findByID(Integer id) throws SQLException {
+        Domicilio cached = cache.get(id);
+        if (cached != null) {
+            return new Domicilio(cached);
+        }
+        Domicilio loaded = super.findByID(id);
+        if (loaded != null) {
+            cacheLoaded(id, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public Map<Integer, Domicilio> findAllByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Domicilio> hits = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            Domicilio cached = id == null ? null : cache.get(id);
+            if (cached != null) {
+                hits.put(id, new Domicilio(cached));
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Integer, Domicilio> loaded = super.findAllByIds(missing);
+            loaded.forEach(this::cacheLoaded);
+            hits.putAll(loaded);
+        }
+        Map<Integer, Domicilio> result = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            Domicilio domicilio = id == null ? null : hits.get(id);
+            if (domicilio != null) {
+                result.put(id, domicilio);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Domicilio update(Domicilio entity) throws SQLException {
+        try {
+            return super.update(entity);
+        } finally {
+            invalidate(entity.getId());
+        }
+    }
+
+    @Override
+    public Domicilio update(Connection conn, Domicilio entity) throws SQLException {
+        try {
+            return super.update(conn, entity);
+        } finally {
+            invalidate(entity.getId());
+        }
+    }
+
+    @Override
+    public List<Domicilio> updateAll(Connection conn, List<Domicilio> entities) throws SQLException {
+        try {
+            return super.updateAll(conn, entities);
+        } finally {
+            entities.forEach(d -> invalidate(d.getId()));
+        }
+    }
+
+    @Override
+    public void delete(Integer id) throws SQLException {
+        try {
+            super.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int delete(Connection conn, Integer id) throws SQLException {
+        try {
+            return super.delete(conn, id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int deleteAll(Connection conn, List<Integer> ids) throws SQLException {
+        try {
+            return super.deleteAll(conn, ids);
+        } finally {
+            ids.forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * Guarda un domicilio leído por otro camino (PersonaDAO lo trae junto con la persona),
+     * con las mismas reglas que una lectura de este DAO.
+     */
+    public void cacheRead(Domicilio domicilio) {
+        cacheLoaded(domicilio.getId(), domicilio);
+    }
+
+    // Lo leído con la conexión de una transacción puede incluir cambios sin confirmar.
+    private void cacheLoaded(Integer id, Domicilio domicilio) {
+        if (TransactionContext.currentConnection() == null) {
+            cache.put(id, new Domicilio(domicilio));
+        }
+    }
+
+    /**
+     * Invalida ya y, si hay una transacción ligada al hilo, otra vez después del commit o
+     * del rollback: así no queda cacheado un valor que otro hilo leyó antes de que se
+     * confirmara el cambio, ni uno que nunca se confirmó.
+     */
+    private void invalidate(Integer id) {
+        cache.invalidate(id);
+        TransactionContext.runAfterCommit(() -> cache.invalidate(id));
+        TransactionContext.runAfterRollback(() -> cache.invalidate(id));
+    }
+}
@@ -8,35 +8,59 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public class DomicilioDAO extends BaseDAO<Domicilio, Integer> {
+    // SQL, mapeo de filas y bindeo generados desde las anotaciones de Domicilio.
+    private static final DomicilioMapping MAPPING = DomicilioMapping.INSTANCE;
 
     public DomicilioDAO() {
-        super(Domicilio.class, "domicilio", "id");
+        super(MAPPING);
     }
 
     @Override
-    protected Domicilio mapResultSetToObject(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-        String localidad = rs.getString("localidad");
-        String provincia = rs.getString("provincia");
-        return new Domicilio(id, localidad, provincia);
+    protected String[] getMappedColumns() {
+        return MAPPING.getMappedColumns();
     }
 
     @Override
-    protected PreparedStatement prepareStatementForInsert(Connection conn, Domicilio entity) throws SQLException {
-        String sql = "INSERT INTO " + tableName + " (localidad, provincia) VALUES (?, ?)";
-        PreparedStatement ps = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-        ps.setString(1, entity.getLocalidad());
-        ps.setString(2, entity.getProvincia());
-        return ps;
+    protected Domicilio mapRow(ResultSet rs, int[] columns) throws SQLException {
+        return MAPPING.mapRow(rs, columns);
+    }
+
+    @Override
+    public boolean hasChanges(Domicilio entity) {
+        return entity.isDirty();
+    }
+
+    @Override
+    protected void markPersisted(Domicilio entity) {
+        entity.markClean();
     }
 
     @Override
     protected PreparedStatement prepareStatementForUpdate(Connection conn, Domicilio entity) throws SQLException {
-        String sql = "UPDATE " + tableName + " SET localidad = ?, provincia = ? WHERE " + idColumnName + " = ?";
-        PreparedStatement ps = conn.prepareStatement(sql);
-        ps.setString(1, entity.getLocalidad());
-        ps.setString(2, entity.getProvincia());
-        ps.setInt(3, entity.getId());
+        // Los bits de getDirtyFields() coinciden con los de DomicilioMapping.
+        int fields = entity.getDirtyFields();
+        PreparedStatement ps = conn.prepareStatement(MAPPING.getUpdateSql(fields));
+        MAPPING.bindUpdate(ps, entity, fields);
         return ps;
     }
+
+    @Override
+    protected String getInsertSql() {
+        return DomicilioMapping.INSERT_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement ps, Domicilio entity) throws SQLException {
+        MAPPING.bindInsert(ps, entity);
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return MAPPING.getUpdateSql(DomicilioMapping.ALL_COLUMNS);
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement ps, Domicilio entity) throws SQLException {
+        MAPPING.bindUpdate(ps, entity, DomicilioMapping.ALL_COLUMNS);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * SQL, mapeo de filas y bindeo de parámetros de una entidad. Las implementaciones las
+ * genera el procesador de anotaciones a partir de {@link mapping.Table} (por ejemplo
+ * PersonaMapping) y se usan a través de su INSTANCE, así cada DAO llama a una sola clase final.
+ *
+ * Las columnas distintas del ID se numeran en el orden en que están declaradas en la
+ * entidad; el bit i de los parámetros columns de updateSql y bindUpdate es la columna i.
+ *
+ * @param <T> El tipo de la entidad.
+ */
+public interface EntityMapping<T> extends IdAccessor<T> {
+
+    Class<T> getEntityClass();
+
+    String getTableName();
+
+    String getIdColumn();
+
+    /**
+     * SELECT sin WHERE, con los joins de las relaciones.
+     */
+    String getSelectSql();
+
+    /**
+     * Columna ID tal como se referencia dentro de getSelectSql().
+     */
+    String getQualifiedIdColumn();
+
+    /**
+     * Etiquetas de las columnas que lee mapRow, en el orden de las posiciones que recibe.
+     */
+    String[] getMappedColumns();
+
+    /**
+     * Arma la entidad de la fila actual; columns[i] es la posición de getMappedColumns()[i].
+     */
+    T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+    String getInsertSql();
+
+    void bindInsert(PreparedStatement ps, T entity) throws SQLException;
+
+    /**
+     * Máscara con todas las columnas distintas del ID.
+     */
+    int getAllColumns();
+
+    /**
+     * UPDATE que escribe solo las columnas de la máscara (distinta de cero).
+     */
+    String getUpdateSql(int columns);
+
+    /**
+     * Bindea las columnas de la máscara en orden y después el ID, para getUpdateSql(columns).
+     */
+    void bindUpdate(PreparedStatement ps, T entity, int columns) throws SQLException;
+}
@@ -1,8 +1,11 @@
 package dao;
 
 import java.sql.SQLException; // Import SQLException
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GenericDAO<T, ID> {
     T create(T entity) throws SQLException; // Added throws SQLException
@@ -12,4 +15,17 @@ public interface GenericDAO<T, ID> {
     T update(T entity) throws SQLException; // Added throws SQLException
     
     void delete(ID id) throws SQLException; // Added throws SQLException
+
+    // Operaciones en lote: usan executeBatch y confirman una transacción por cada lote.
+    List<T> createAll(Collection<T> entities) throws SQLException;
+
+    List<T> updateAll(Collection<T> entities) throws SQLException;
+
+    int deleteAll(Collection<ID> ids) throws SQLException;
+
+    // Recorre todas las filas con un cursor; el Stream debe cerrarse para liberar la conexión.
+    Stream<T> streamAll() throws SQLException;
+
+    // Busca varias entidades por ID en pocas consultas; las que no existen no aparecen en el mapa.
+    Map<ID, T> findAllByIds(Collection<ID> ids) throws SQLException;
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lee y asigna el ID entero de una entidad. Cada DAO lo resuelve una sola vez al
+ * construirse, así asignar la clave generada después de un insert no usa reflexión.
+ *
+ * @param <T> El tipo de la entidad.
+ */
+public interface IdAccessor<T> {
+
+    int getId(T entity);
+
+    void setId(T entity, int id);
+
+    /**
+     * Accessor explícito a partir de referencias a métodos, por ejemplo {@code IdAccessor.of(Persona::getId, Persona::setId)}.
+     */
+    static <T> IdAccessor<T> of(ToIntFunction<T> getter, ObjIntConsumer<T> setter) {
+        return new IdAccessor<T>() {
+            @Override
+            public int getId(T entity) {
+                return getter.applyAsInt(entity);
+            }
+
+            @Override
+            public void setId(T entity, int id) {
+                setter.accept(entity, id);
+            }
+        };
+    }
+
+    /**
+     * Accessor para entidades sin uno explícito: busca getXxx()/setXxx(int) una sola vez
+     * y guarda los MethodHandle resultantes.
+     *
+     * @throws IllegalArgumentException si la clase no tiene el getter o el setter públicos.
+     */
+    static <T> IdAccessor<T> forProperty(Class<T> entityClass, String property) {
+        String suffix = property.substring(0, 1).toUpperCase() + property.substring(1);
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            getter = lookup.findVirtual(entityClass, "get" + suffix, MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            setter = lookup.findVirtual(entityClass, "set" + suffix, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(void.class, Object.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("La clase " + entityClass.getName() + " no tiene get" + suffix
+                    + "() y set" + suffix + "(int) públicos para el ID.", e);
+        }
+        return new IdAccessor<T>() {
+            @Override
+            public int getId(T entity) {
+                try {
+                    return (int) getter.invokeExact((Object) entity);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException("No se pudo leer el ID de la entidad.", e);
+                }
+            }
+
+            @Override
+            public void setId(T entity, int id) {
+                try {
+                    setter.invokeExact((Object) entity, id);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException("No se pudo establecer el ID de la entidad.", e);
+                }
+            }
+        };
+    }
+}
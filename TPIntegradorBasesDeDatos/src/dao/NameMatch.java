@@ -0,0 +1,14 @@
+package dao;
+
+/**
+ * Cómo compara PersonaDAO.findByNombre el texto buscado con la columna nombre. Las dos
+ * formas usan el índice idx_persona_nombre (ver migraciones/) y comparan con la collation
+ * de la columna, utf8mb4_general_ci, que no distingue mayúsculas ni acentos: "jose"
+ * encuentra a "José" en cualquiera de las dos.
+ */
+public enum NameMatch {
+    /** nombre = texto. */
+    EXACT,
+    /** nombre LIKE 'texto%'; los comodines que traiga el texto se buscan literalmente. */
+    PREFIX
+}
@@ -0,0 +1,111 @@
+package dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una página de resultados de una consulta por rango de ID (keyset). El token de
+ * continuación es opaco para el llamador: guarda el último ID entregado y el sentido
+ * del recorrido (o, en las búsquedas por nombre, el último nombre e ID), así pedir la
+ * página siguiente cuesta lo mismo a cualquier profundidad.
+ *
+ * @param <T> El tipo de la entidad.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextToken;
+
+    public Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Token para pedir la página siguiente, o null si esta es la última.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page {\n\titems = " + items.size() + "\n\tnextToken = " + nextToken + "\n}\n";
+    }
+
+    static String encodeToken(boolean reverse, int lastId) {
+        String raw = (reverse ? "b:" : "a:") + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static boolean isReverse(String token) {
+        return decode(token).startsWith("b:");
+    }
+
+    static int lastIdOf(String token) {
+        String raw = decode(token);
+        try {
+            return Integer.parseInt(raw.substring(2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El token de continuación no es válido.", e);
+        }
+    }
+
+    /**
+     * Token de una búsqueda ordenada por nombre: guarda el nombre y el ID de la última fila,
+     * que juntos fijan la posición aunque varias personas se llamen igual.
+     */
+    static String encodeNameToken(String lastNombre, int lastId) {
+        String raw = "n:" + lastId + ":" + lastNombre;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int lastIdOfNameToken(String token) {
+        String raw = decodeName(token);
+        try {
+            return Integer.parseInt(raw.substring(2, raw.indexOf(':', 2)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El token de continuación no es válido.", e);
+        }
+    }
+
+    static String lastNombreOf(String token) {
+        String raw = decodeName(token);
+        return raw.substring(raw.indexOf(':', 2) + 1);
+    }
+
+    private static String decodeName(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("El token de continuación no es válido.", e);
+        }
+        if (!raw.startsWith("n:") || raw.indexOf(':', 2) < 0) {
+            throw new IllegalArgumentException("El token de continuación no es de una búsqueda por nombre.");
+        }
+        return raw;
+    }
+
+    private static String decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("El token de continuación no es válido.", e);
+        }
+        if (!raw.startsWith("a:") && !raw.startsWith("b:")) {
+            throw new IllegalArgumentException("El token de continuación no es válido.");
+        }
+        return raw;
+    }
+}
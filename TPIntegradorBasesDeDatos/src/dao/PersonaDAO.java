@@ -1,47 +1,94 @@
 package dao;
 
+import cache.NameIndex;
 import config.DatabaseConnection;
 import model.Persona;
 import model.Domicilio;
+import model.PersonaEdad;
+import model.PersonaNombre;
+import model.PersonaResumen;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional; // Added for findByID return type
+import java.util.Set;
 
 public class PersonaDAO extends BaseDAO<Persona, Integer> {
+    // SQL, mapeo de filas y bindeo generados desde las anotaciones de Persona. El campo
+    // tiene el tipo concreto (clase final) para que cada llamada vaya a un único método.
+    private static final PersonaMapping MAPPING = PersonaMapping.INSTANCE;
+
+    // Proyecciones para listados: solo las columnas que usan y sin el join con domicilio
+    // cuando no piden datos de él.
+    public static final Projection<PersonaNombre> NOMBRE = new Projection<>("nombre",
+            "SELECT id, nombre FROM persona", "id",
+            rs -> new PersonaNombre(rs.getInt(1), rs.getString(2)), PersonaNombre::id);
+    public static final Projection<PersonaEdad> EDAD = new Projection<>("edad",
+            "SELECT id, edad FROM persona", "id",
+            rs -> new PersonaEdad(rs.getInt(1), rs.getInt(2)), PersonaEdad::id);
+    public static final Projection<PersonaResumen> RESUMEN = new Projection<>("resumen",
+            "SELECT p.id, p.nombre, p.edad, d.localidad, d.provincia FROM persona p INNER JOIN domicilio d ON p.id_domicilio = d.id", "p.id",
+            rs -> new PersonaResumen(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5)), PersonaResumen::id);
+
+    // Búsqueda por nombre sobre idx_persona_nombre (ver migraciones/). Se ordena por nombre
+    // e ID, el orden del índice, y las páginas siguientes continúan desde el último par leído.
+    private static final String NOMBRE_AFTER = " AND (p.nombre > ? OR (p.nombre = ? AND p.id > ?))";
+    private static final String NOMBRE_ORDER = " ORDER BY p.nombre, p.id LIMIT ?";
+    private static final String BY_NOMBRE_SQL = PersonaMapping.SELECT_SQL + " WHERE p.nombre = ?" + NOMBRE_ORDER;
+    private static final String BY_NOMBRE_AFTER_SQL = PersonaMapping.SELECT_SQL + " WHERE p.nombre = ?" + NOMBRE_AFTER + NOMBRE_ORDER;
+    private static final String BY_PREFIX_SQL = PersonaMapping.SELECT_SQL + " WHERE p.nombre LIKE ? ESCAPE '!'" + NOMBRE_ORDER;
+    private static final String BY_PREFIX_AFTER_SQL = PersonaMapping.SELECT_SQL + " WHERE p.nombre LIKE ? ESCAPE '!'" + NOMBRE_AFTER + NOMBRE_ORDER;
+    // Solo lee columnas del índice (nombre y el ID que InnoDB guarda en cada entrada).
+    private static final String NOMBRES_BY_PREFIX_SQL = "SELECT id, nombre FROM persona WHERE nombre LIKE ? ESCAPE '!' ORDER BY nombre, id LIMIT ?";
+    // [forma de localidades][forma de provincias]; ver findDomicilioIds.
+    private static final String[][] FIND_DOMICILIOS_SQL = findDomiciliosSql();
+
     private DomicilioDAO domicilioDao;
 
     public PersonaDAO(DomicilioDAO domicilioDao) {
-        super(Persona.class, "persona", "id");
+        super(MAPPING);
         this.domicilioDao = domicilioDao;
     }
 
+    public DomicilioDAO getDomicilioDao() {
+        return domicilioDao;
+    }
+
     @Override
-    protected Persona mapResultSetToObject(ResultSet rs) throws SQLException {
-        int personaId = rs.getInt("id");
-        String nombre = rs.getString("nombre");
-        int edad = rs.getInt("edad");
-        int domicilioId = rs.getInt("id_domicilio"); // Corrected column name from 'domicilio_id' to 'id_domicilio'
-                                                     // based on the SQL in prepareStatementForInsert/Update
-        String localidad = rs.getString("localidad");
-        String provincia = rs.getString("provincia");
-
-        Domicilio domicilio = null;
-        if (domicilioId > 0) { // Check if a valid domicilio_id exists
-            domicilio = new Domicilio(domicilioId, localidad, provincia);
-        } else {
-            System.err.println("Advertencia: Domicilio ID = 0 o es inválido para Persona ID: " + personaId + ". Domicilio será null.");
+    protected String[] getMappedColumns() {
+        return MAPPING.getMappedColumns();
+    }
+
+    @Override
+    protected Persona mapRow(ResultSet rs, int[] columns) throws SQLException {
+        Persona persona = MAPPING.mapRow(rs, columns);
+        if (persona.getDomicilio() == null) {
+            System.err.println("Advertencia: Domicilio ID = 0 o es inválido para Persona ID: " + persona.getId() + ". Domicilio será null.");
         }
-        return new Persona(personaId, nombre, edad, domicilio);
+        return persona;
+    }
+
+    @Override
+    public boolean hasChanges(Persona entity) {
+        return entity.isDirty() || (entity.getDomicilio() != null && entity.getDomicilio().getId() == 0);
+    }
+
+    @Override
+    protected void markPersisted(Persona entity) {
+        entity.markClean();
     }
 
     public Optional<Persona> read(Connection conn, Integer id) throws SQLException { // Method name changed to 'read'
-        String sql = "SELECT p.id, p.nombre, p.edad, d.id AS domicilio_id, d.localidad, d.provincia " +
-                     "FROM persona p INNER JOIN domicilio d ON p.id_domicilio = d.id " +
-                     "WHERE p.id = ?";
+        String sql = selectByIdSql;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         Persona persona = null;
@@ -51,7 +98,7 @@ public class PersonaDAO extends BaseDAO<Persona, Integer> {
             pstmt.setInt(1, id);
             rs = pstmt.executeQuery();
             if (rs.next()) {
-                persona = mapResultSetToObject(rs);
+                persona = mapRow(rs, columnPlan(sql, rs));
             }
             return Optional.ofNullable(persona); // Return Optional
         } catch (SQLException e) {
@@ -65,7 +112,7 @@ public class PersonaDAO extends BaseDAO<Persona, Integer> {
     }
 
     @Override
-    protected PreparedStatement prepareStatementForInsert(Connection conn, Persona entity) throws SQLException {
+    protected void beforeInsert(Connection conn, Persona entity) throws SQLException {
         // Handle Domicilio creation/update before Persona insertion
         if (entity.getDomicilio() == null) {
             throw new IllegalArgumentException("Persona must have a Domicilio for insertion.");
@@ -75,64 +122,307 @@ public class PersonaDAO extends BaseDAO<Persona, Integer> {
         if (entity.getDomicilio().getId() == 0) {
             this.domicilioDao.insert(conn, entity.getDomicilio()); // Use transactional insert
         } else {
-            // This is the problematic line. Now BaseDAO has update(Connection conn, T entity)
             this.domicilioDao.update(conn, entity.getDomicilio()); // Use transactional update
         }
+    }
 
-        int domicilioId = entity.getDomicilio().getId(); // Ensure ID is updated if inserted
-        String sql = "INSERT INTO " + tableName + " (nombre, edad, id_domicilio) VALUES (?, ?, ?)";
-        PreparedStatement ps = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-        ps.setString(1, entity.getNombre());
-        ps.setInt(2, entity.getEdad());
-        ps.setInt(3, domicilioId);
-        return ps;
+    @Override
+    protected String getInsertSql() {
+        return PersonaMapping.INSERT_SQL;
     }
 
     @Override
-    protected PreparedStatement prepareStatementForUpdate(Connection conn, Persona entity) throws SQLException {
+    protected void bindInsert(PreparedStatement ps, Persona entity) throws SQLException {
+        MAPPING.bindInsert(ps, entity);
+    }
+
+    @Override
+    protected void beforeUpdate(Connection conn, Persona entity) throws SQLException {
         if (entity.getDomicilio() == null) {
-            throw new IllegalArgumentException("Persona must have a Domicilio for update.");
+            // Sin el domicilio marcado como modificado, el UPDATE no escribe id_domicilio.
+            if ((entity.getDirtyFields() & Persona.DOMICILIO) != 0) {
+                throw new IllegalArgumentException("Persona must have a Domicilio for update.");
+            }
+            return;
         }
 
         // Use the transactional methods from DomicilioDAO
         if (entity.getDomicilio().getId() == 0) {
             this.domicilioDao.insert(conn, entity.getDomicilio()); // If Domicilio has no ID, insert it
-        } else {
-            this.domicilioDao.update(conn, entity.getDomicilio()); // Update existing Domicilio
+        } else if (entity.getDomicilio().isDirty()) {
+            this.domicilioDao.update(conn, entity.getDomicilio()); // Update existing Domicilio only if it changed
         }
+    }
 
-        int domicilioId = entity.getDomicilio().getId();
-        String sql = "UPDATE " + tableName + " SET nombre = ?, edad = ?, id_domicilio = ? WHERE " + idColumnName + " = ?";
-        PreparedStatement ps = conn.prepareStatement(sql);
-        ps.setString(1, entity.getNombre());
-        ps.setInt(2, entity.getEdad());
-        ps.setInt(3, domicilioId);
-        ps.setInt(4, entity.getId());
+    /**
+     * Escribe solo las columnas modificadas. Devuelve null si lo único que cambió fue el
+     * domicilio, que ya se guardó en beforeUpdate.
+     */
+    @Override
+    protected PreparedStatement prepareStatementForUpdate(Connection conn, Persona entity) throws SQLException {
+        beforeUpdate(conn, entity);
+        int fields = entity.getDirtyFields();
+        if (fields == 0) {
+            return null;
+        }
+        // Los bits de getDirtyFields() coinciden con los de PersonaMapping.
+        PreparedStatement ps = conn.prepareStatement(MAPPING.getUpdateSql(fields));
+        MAPPING.bindUpdate(ps, entity, fields);
         return ps;
     }
 
     @Override
-    public List<Persona> findAll() throws SQLException {
-        List<Persona> personas = new ArrayList<>();
-        // Modified SQL to join with Domicilio table to fetch complete Domicilio data
-        String sql = "SELECT p.id, p.nombre, p.edad, d.id AS id_domicilio, d.localidad, d.provincia " +
-                     "FROM persona p INNER JOIN domicilio d ON p.id_domicilio = d.id";
+    protected String getUpdateSql() {
+        return MAPPING.getUpdateSql(PersonaMapping.ALL_COLUMNS);
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement ps, Persona entity) throws SQLException {
+        MAPPING.bindUpdate(ps, entity, PersonaMapping.ALL_COLUMNS);
+    }
+
+    /**
+     * Página de personas cuyo nombre es nombre (EXACT) o empieza con él (PREFIX), ordenadas
+     * por nombre e ID. Con token null devuelve la primera página; si no, continúa desde el
+     * token de la página anterior de la búsqueda.
+     *
+     * @throws IllegalArgumentException si el token no es de una búsqueda por nombre.
+     */
+    public Page<Persona> findByNombre(String nombre, NameMatch match, String token, int limit) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero.");
+        }
+        boolean prefix = match == NameMatch.PREFIX;
+        String lastNombre = null;
+        int lastId = 0;
+        String sql;
+        if (token == null) {
+            sql = prefix ? BY_PREFIX_SQL : BY_NOMBRE_SQL;
+        } else {
+            lastNombre = Page.lastNombreOf(token);
+            lastId = Page.lastIdOfNameToken(token);
+            sql = prefix ? BY_PREFIX_AFTER_SQL : BY_NOMBRE_AFTER_SQL;
+        }
+
+        List<Persona> items = new ArrayList<>(Math.min(limit, 1000) + 1);
         Connection conn = null;
-        PreparedStatement pstmt = null;
+        PreparedStatement ps = null;
         ResultSet rs = null;
         try {
-            conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            rs = pstmt.executeQuery();
+            conn = acquireConnection();
+            ps = conn.prepareStatement(sql);
+            int index = 1;
+            ps.setString(index++, prefix ? likePrefix(nombre) : nombre);
+            if (token != null) {
+                ps.setString(index++, lastNombre);
+                ps.setString(index++, lastNombre);
+                ps.setInt(index++, lastId);
+            }
+            ps.setInt(index, limit + 1);
+            rs = ps.executeQuery();
+            int[] columns = columnPlan(sql, rs);
+            while (rs.next()) {
+                items.add(mapRow(rs, columns));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar personas por nombre '" + nombre + "': " + e.getMessage());
+            throw e;
+        } finally {
+            closeResources(ps, rs, conn);
+        }
+
+        String nextToken = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            Persona last = items.get(limit - 1);
+            nextToken = Page.encodeNameToken(last.getNombre(), last.getId());
+        }
+        return new Page<>(items, nextToken);
+    }
+
+    /**
+     * Hasta limit (id, nombre) cuyo nombre empieza con prefix, sin el join con domicilio.
+     */
+    public List<PersonaNombre> findNombresByPrefix(String prefix, int limit) throws SQLException {
+        List<PersonaNombre> nombres = new ArrayList<>(Math.min(limit, 1000));
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = acquireConnection();
+            ps = conn.prepareStatement(NOMBRES_BY_PREFIX_SQL);
+            ps.setString(1, likePrefix(prefix));
+            ps.setInt(2, limit);
+            rs = ps.executeQuery();
             while (rs.next()) {
-                personas.add(mapResultSetToObject(rs));
+                nombres.add(new PersonaNombre(rs.getInt(1), rs.getString(2)));
             }
+            return nombres;
         } catch (SQLException e) {
-            System.err.println("Error al listar todas las entidades Persona: " + e.getMessage());
+            System.err.println("Error al buscar nombres que empiezan con '" + prefix + "': " + e.getMessage());
             throw e;
         } finally {
-            closeResources(pstmt, rs, conn);
+            closeResources(ps, rs, conn);
+        }
+    }
+
+    // Patrón LIKE para "empieza con": escapa los comodines con '!', que no necesita
+    // tratamiento especial ni en MySQL ni en H2 (a diferencia de la barra invertida).
+    private static String likePrefix(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '!' || c == '%' || c == '_') {
+                pattern.append('!');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * Importa personas en lotes de batchSize, cada uno en su propia transacción.
+     * Los domicilios sin ID se agrupan por (localidad, provincia): se reutilizan los que
+     * ya existen en la tabla y los que faltan se insertan una sola vez, así varias personas
+     * con la misma dirección comparten la fila. Los domicilios que ya traen ID se usan tal cual.
+     */
+    public List<Persona> importAll(Collection<Persona> personas) throws SQLException {
+        List<Persona> list = new ArrayList<>(personas);
+        runInChunks("importAll", list, (conn, chunk) -> importAll(conn, chunk).size());
+        return list;
+    }
+
+    /**
+     * Importa un lote sobre la conexión recibida sin hacer commit: una consulta para los
+     * domicilios existentes, un lote de inserts de domicilios y un lote de inserts de personas.
+     */
+    public List<Persona> importAll(Connection conn, List<Persona> personas) throws SQLException {
+        resolveDomicilios(conn, personas);
+        // Los domicilios ya tienen ID, así que se omite la cascada de beforeInsert.
+        return insertBatch(conn, personas, false);
+    }
+
+    /**
+     * Asigna ID a los domicilios sin ID de las personas, como lo hace importAll: busca los
+     * que ya existen por (localidad, provincia) e inserta los que faltan, una sola vez cada
+     * uno. No hace commit.
+     */
+    public void resolveDomicilios(Connection conn, List<Persona> personas) throws SQLException {
+        Map<String, List<Domicilio>> pendientes = new LinkedHashMap<>();
+        for (Persona persona : personas) {
+            Domicilio domicilio = persona.getDomicilio();
+            if (domicilio == null) {
+                throw new IllegalArgumentException("Persona must have a Domicilio for insertion.");
+            }
+            if (domicilio.getId() == 0) {
+                pendientes.computeIfAbsent(domicilioKey(domicilio.getLocalidad(), domicilio.getProvincia()),
+                        k -> new ArrayList<>()).add(domicilio);
+            }
+        }
+
+        if (!pendientes.isEmpty()) {
+            Map<String, Integer> existentes = findDomicilioIds(conn, pendientes);
+            List<Domicilio> nuevos = new ArrayList<>();
+            for (Map.Entry<String, List<Domicilio>> entry : pendientes.entrySet()) {
+                Integer id = existentes.get(entry.getKey());
+                if (id == null) {
+                    nuevos.add(entry.getValue().get(0));
+                } else {
+                    entry.getValue().forEach(d -> domicilioDao.assignGeneratedId(d, id));
+                }
+            }
+            domicilioDao.insertAll(conn, nuevos);
+            // Como con los IDs generados, si la transacción se revierte cada domicilio vuelve a no tener ID.
+            for (Domicilio nuevo : nuevos) {
+                for (Domicilio d : pendientes.get(domicilioKey(nuevo.getLocalidad(), nuevo.getProvincia()))) {
+                    if (d != nuevo) {
+                        domicilioDao.assignGeneratedId(d, nuevo.getId());
+                    }
+                }
+            }
         }
-        return personas;
+    }
+
+    // Filtra por las localidades y por las provincias por separado (en lugar de pares
+    // (localidad, provincia) IN (...), que ni MySQL ni H2 resuelven bien con el índice de
+    // 002_indice_domicilio_direccion) y arma los pares acá; las filas de más que trae el
+    // filtro cruzado no molestan, porque solo se buscan las claves pendientes. Como en
+    // findAllByIds, las claves van en bloques y cada lista se completa repitiendo su último
+    // valor hasta un tamaño de IN_LIST_SHAPES, así hay pocas formas de SQL para el cache de statements.
+    private Map<String, Integer> findDomicilioIds(Connection conn, Map<String, List<Domicilio>> pendientes) throws SQLException {
+        int largest = IN_LIST_SHAPES[IN_LIST_SHAPES.length - 1];
+        List<Domicilio> claves = new ArrayList<>();
+        pendientes.values().forEach(grupo -> claves.add(grupo.get(0)));
+        Map<String, Integer> ids = new HashMap<>();
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            for (int from = 0; from < claves.size(); from += largest) {
+                Set<String> localidades = new LinkedHashSet<>();
+                Set<String> provincias = new LinkedHashSet<>();
+                for (Domicilio domicilio : claves.subList(from, Math.min(from + largest, claves.size()))) {
+                    localidades.add(domicilio.getLocalidad());
+                    provincias.add(domicilio.getProvincia());
+                }
+                int localidadShape = inListShape(localidades.size());
+                int provinciaShape = inListShape(provincias.size());
+                pstmt = conn.prepareStatement(FIND_DOMICILIOS_SQL[localidadShape][provinciaShape]);
+                int index = setPadded(pstmt, 1, localidades, IN_LIST_SHAPES[localidadShape]);
+                setPadded(pstmt, index, provincias, IN_LIST_SHAPES[provinciaShape]);
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    ids.putIfAbsent(domicilioKey(rs.getString("localidad"), rs.getString("provincia")), rs.getInt("id"));
+                }
+                closeResources(pstmt, rs, null);
+                pstmt = null;
+                rs = null;
+            }
+            return ids;
+        } finally {
+            closeResources(pstmt, rs, null);
+        }
+    }
+
+    // La forma más chica de IN_LIST_SHAPES en la que entran count valores (count nunca supera la más grande).
+    private static int inListShape(int count) {
+        int shape = 0;
+        while (IN_LIST_SHAPES[shape] < count) {
+            shape++;
+        }
+        return shape;
+    }
+
+    private static int setPadded(PreparedStatement pstmt, int index, Set<String> values, int size) throws SQLException {
+        String last = null;
+        for (String value : values) {
+            pstmt.setString(index++, value);
+            last = value;
+        }
+        for (int i = values.size(); i < size; i++) {
+            pstmt.setString(index++, last);
+        }
+        return index;
+    }
+
+    private static String[][] findDomiciliosSql() {
+        String[][] sql = new String[IN_LIST_SHAPES.length][IN_LIST_SHAPES.length];
+        for (int l = 0; l < IN_LIST_SHAPES.length; l++) {
+            for (int p = 0; p < IN_LIST_SHAPES.length; p++) {
+                sql[l][p] = "SELECT id, localidad, provincia FROM domicilio WHERE localidad IN ("
+                        + placeholders(IN_LIST_SHAPES[l]) + ") AND provincia IN (" + placeholders(IN_LIST_SHAPES[p]) + ")";
+            }
+        }
+        return sql;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // Misma clave que NameIndex: une al menos lo que la collation de la columna considera
+    // igual (mayúsculas, acentos, ß y s...), así una dirección que la consulta encuentra en
+    // la tabla también se encuentra en el mapa y no se inserta de nuevo.
+    private static String domicilioKey(String localidad, String provincia) {
+        return NameIndex.normalize(localidad) + '\u0000' + NameIndex.normalize(provincia);
     }
 }
\ No newline at end of file
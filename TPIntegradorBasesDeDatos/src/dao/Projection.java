@@ -0,0 +1,77 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Consulta que trae solo algunas columnas y arma con ellas un tipo compacto (por ejemplo un
+ * record) en lugar de la entidad completa. El SELECT es fijo, así el RowReader lee por
+ * posición en el orden de sus columnas. Los DAO publican sus proyecciones como constantes
+ * (ver PersonaDAO.NOMBRE) y BaseDAO las ejecuta con findAll, read y findPage.
+ *
+ * @param <R> El tipo de cada fila.
+ */
+public final class Projection<R> {
+
+    @FunctionalInterface
+    public interface RowReader<R> {
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    private final String name;
+    private final String selectSql;
+    private final String selectByIdSql;
+    private final String firstPageSql;
+    private final String pageAfterSql;
+    private final RowReader<R> reader;
+    private final ToIntFunction<R> idOf;
+
+    /**
+     * @param selectSql SELECT sin WHERE; el join con otras tablas solo si alguna columna lo necesita.
+     * @param qualifiedIdColumn columna ID tal como se referencia dentro de selectSql.
+     * @param idOf ID de una fila, para el token de paginación.
+     */
+    public Projection(String name, String selectSql, String qualifiedIdColumn, RowReader<R> reader, ToIntFunction<R> idOf) {
+        this.name = name;
+        this.selectSql = selectSql;
+        this.selectByIdSql = selectSql + " WHERE " + qualifiedIdColumn + " = ?";
+        this.firstPageSql = selectSql + " ORDER BY " + qualifiedIdColumn + " LIMIT ?";
+        this.pageAfterSql = selectSql + " WHERE " + qualifiedIdColumn + " > ? ORDER BY " + qualifiedIdColumn + " LIMIT ?";
+        this.reader = reader;
+        this.idOf = idOf;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String getSelectSql() {
+        return selectSql;
+    }
+
+    String getSelectByIdSql() {
+        return selectByIdSql;
+    }
+
+    String getFirstPageSql() {
+        return firstPageSql;
+    }
+
+    String getPageAfterSql() {
+        return pageAfterSql;
+    }
+
+    R read(ResultSet rs) throws SQLException {
+        return reader.read(rs);
+    }
+
+    int idOf(R row) {
+        return idOf.applyAsInt(row);
+    }
+
+    @Override
+    public String toString() {
+        return "Projection[" + name + ": " + selectSql + "]";
+    }
+}
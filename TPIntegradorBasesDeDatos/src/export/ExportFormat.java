@@ -0,0 +1,21 @@
+package export;
+
+/**
+ * Formatos de {@link TableExporter}.
+ */
+public enum ExportFormat {
+    /** RFC 4180: una fila de encabezado con los nombres de columna y líneas terminadas en CRLF. */
+    CSV("csv"),
+    /** JSON Lines: un objeto por línea con los nombres de columna como claves. */
+    JSONL("jsonl");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,17 @@
+package export;
+
+/**
+ * Resultado de una exportación. bytes son los bytes escritos antes de comprimir.
+ */
+public record ExportResult(long rows, long bytes, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d filas, %.1f MB en %.2f s (%.0f filas/s)",
+                rows, bytes / 1_048_576.0, elapsedNanos / 1e9, rowsPerSecond());
+    }
+}
@@ -0,0 +1,217 @@
+package export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Escribe registros CSV o JSON directamente como bytes UTF-8 en un buffer propio, que se
+ * vuelca al canal o al stream cuando se llena. Los valores se codifican carácter a carácter
+ * desde el String que entrega JDBC, sin armar cadenas intermedias por campo ni por fila.
+ */
+final class RecordEncoder {
+
+    private static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    // Uno de los dos destinos; el otro es null.
+    private final WritableByteChannel channel;
+    private final OutputStream out;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private int position;
+    private long written;
+
+    RecordEncoder(WritableByteChannel channel, int bufferSize) {
+        this(channel, null, bufferSize);
+    }
+
+    RecordEncoder(OutputStream out, int bufferSize) {
+        this(null, out, bufferSize);
+    }
+
+    private RecordEncoder(WritableByteChannel channel, OutputStream out, int bufferSize) {
+        this.channel = channel;
+        this.out = out;
+        this.bytes = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Bytes codificados hasta ahora, incluidos los que todavía están en el buffer.
+     */
+    long getBytesWritten() {
+        return written + position;
+    }
+
+    void flush() throws IOException {
+        if (out != null) {
+            out.write(bytes, 0, position);
+        } else {
+            buffer.clear().limit(position);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        written += position;
+        position = 0;
+    }
+
+    private void ensure(int count) throws IOException {
+        if (position + count > bytes.length) {
+            flush();
+        }
+    }
+
+    void write(byte b) throws IOException {
+        ensure(1);
+        bytes[position++] = b;
+    }
+
+    void write(byte[] raw) throws IOException {
+        if (raw.length > bytes.length - position) {
+            flush();
+        }
+        if (raw.length > bytes.length) {
+            for (int from = 0; from < raw.length; from += bytes.length) {
+                int length = Math.min(bytes.length, raw.length - from);
+                System.arraycopy(raw, from, bytes, 0, length);
+                position = length;
+                flush();
+            }
+            return;
+        }
+        System.arraycopy(raw, 0, bytes, position, raw.length);
+        position += raw.length;
+    }
+
+    void writeLong(long value) throws IOException {
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            for (char c : Long.toString(value).toCharArray()) {
+                bytes[position++] = (byte) c;
+            }
+            return;
+        }
+        if (value < 0) {
+            bytes[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            bytes[i] = DIGITS[(int) (value % 10)];
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    /**
+     * Campo CSV (RFC 4180): entre comillas solo si contiene coma, comillas o saltos de
+     * línea, y con las comillas internas duplicadas.
+     */
+    void writeCsv(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writeUtf8(value, false);
+            return;
+        }
+        write((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                write((byte) '"');
+            }
+            i = writeChar(value, i);
+        }
+        write((byte) '"');
+    }
+
+    /**
+     * Cadena JSON entre comillas, con comillas, barras y caracteres de control escapados.
+     */
+    void writeJsonString(String value) throws IOException {
+        write((byte) '"');
+        writeUtf8(value, true);
+        write((byte) '"');
+    }
+
+    private void writeUtf8(String value, boolean json) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                // ASCII imprimible, la mayor parte de los datos: un byte sin más controles.
+                if (position == bytes.length) {
+                    flush();
+                }
+                bytes[position++] = (byte) c;
+            } else if (json && (c == '"' || c == '\\' || c < 0x20)) {
+                writeJsonEscape(c);
+            } else {
+                i = writeChar(value, i);
+            }
+        }
+    }
+
+    private void writeJsonEscape(char c) throws IOException {
+        ensure(6);
+        bytes[position++] = '\\';
+        switch (c) {
+            case '"':
+                bytes[position++] = '"';
+                break;
+            case '\\':
+                bytes[position++] = '\\';
+                break;
+            case '\n':
+                bytes[position++] = 'n';
+                break;
+            case '\r':
+                bytes[position++] = 'r';
+                break;
+            case '\t':
+                bytes[position++] = 't';
+                break;
+            default:
+                bytes[position++] = 'u';
+                bytes[position++] = '0';
+                bytes[position++] = '0';
+                bytes[position++] = HEX[c >> 4];
+                bytes[position++] = HEX[c & 0xF];
+        }
+    }
+
+    // Codifica el carácter en i (y el siguiente, si forman un par sustituto) y devuelve el
+    // índice del último carácter consumido.
+    private int writeChar(String value, int i) throws IOException {
+        ensure(4);
+        char c = value.charAt(i);
+        if (c < 0x80) {
+            bytes[position++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[position++] = (byte) (0xC0 | (c >> 6));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            bytes[position++] = '?';
+        } else {
+            bytes[position++] = (byte) (0xE0 | (c >> 12));
+            bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+}
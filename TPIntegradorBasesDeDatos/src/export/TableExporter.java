@@ -0,0 +1,232 @@
+package export;
+
+import dao.BaseDAO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.zip.GZIPOutputStream;
+import metrics.DataLayerMetrics;
+import metrics.OperationMetrics;
+
+/**
+ * Vuelca la consulta base de un DAO (con los joins de sus relaciones) a CSV o JSON Lines.
+ * Lee con un cursor (ver {@link BaseDAO#scan}) y escribe cada fila directo en un buffer de
+ * bytes que se vuelca a un FileChannel o a un OutputStream, sin armar entidades ni retener
+ * nada por fila: la memoria no depende del tamaño de la tabla. En MySQL el driver también
+ * tiene que leer de a poco, con useCursorFetch=true en DB_URL o con DB_FETCH_SIZE=0.
+ *
+ * Las columnas enteras se escriben como números y el resto como texto; NULL queda como
+ * campo vacío en CSV y como null en JSON. Cada exportación se registra en DataLayerMetrics
+ * como "&lt;Entidad&gt;.export".
+ */
+public final class TableExporter {
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(long rows, long bytes, long elapsedNanos);
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // Cómo se lee cada columna: getInt es bastante más barato que getLong en algunos drivers.
+    private static final byte TEXT = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] END_OBJECT = {'}', '\n'};
+
+    private final BaseDAO<?, ?> dao;
+    private final ExportFormat format;
+    private final OperationMetrics metrics;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private ProgressListener progressListener;
+    private long progressEvery;
+
+    public TableExporter(BaseDAO<?, ?> dao, ExportFormat format) {
+        this.dao = dao;
+        this.format = format;
+        this.metrics = DataLayerMetrics.getInstance().operation(dao.getEntityClass().getSimpleName() + ".export");
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("El buffer de exportación debe tener al menos 1024 bytes.");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Llama a listener cada everyRows filas escritas, por ejemplo para mostrar el avance.
+     */
+    public void setProgressListener(ProgressListener listener, long everyRows) {
+        if (listener != null && everyRows <= 0) {
+            throw new IllegalArgumentException("La cantidad de filas entre reportes debe ser mayor a cero.");
+        }
+        this.progressListener = listener;
+        this.progressEvery = everyRows;
+    }
+
+    /**
+     * Exporta a un archivo, que se reemplaza si existe. Con gzip el contenido se comprime;
+     * el tamaño del resultado es el de antes de comprimir.
+     */
+    public ExportResult export(Path file, boolean gzip) throws IOException, SQLException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (!gzip) {
+                return export(new RecordEncoder(channel, bufferSize));
+            }
+            try (GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize)) {
+                return export(new RecordEncoder(out, bufferSize));
+            }
+        }
+    }
+
+    /**
+     * Exporta al stream, sin cerrarlo. El stream no necesita buffer propio.
+     */
+    public ExportResult export(OutputStream out) throws IOException, SQLException {
+        ExportResult result = export(new RecordEncoder(out, bufferSize));
+        out.flush();
+        return result;
+    }
+
+    private ExportResult export(RecordEncoder encoder) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        boolean failed = true;
+        try {
+            rows = dao.scan(new RowWriter(encoder, start));
+            encoder.flush();
+            failed = false;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            metrics.record(start, rows, failed);
+        }
+        return new ExportResult(rows, encoder.getBytesWritten(), System.nanoTime() - start);
+    }
+
+    // Escribe cada fila del cursor. Lo que depende de las columnas (tipos, encabezado, claves
+    // JSON ya codificadas) se arma una vez en start.
+    private final class RowWriter implements BaseDAO.RowVisitor {
+        private final RecordEncoder encoder;
+        private final long start;
+        private byte[] kinds;
+        private byte[][] jsonKeys;
+        private long rows;
+
+        RowWriter(RecordEncoder encoder, long start) {
+            this.encoder = encoder;
+            this.start = start;
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            int count = metaData.getColumnCount();
+            kinds = new byte[count + 1];
+            jsonKeys = new byte[count + 1][];
+            try {
+                for (int column = 1; column <= count; column++) {
+                    int type = metaData.getColumnType(column);
+                    kinds[column] = type == Types.BIGINT ? LONG
+                            : type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER ? INT : TEXT;
+                    String label = metaData.getColumnLabel(column);
+                    if (format == ExportFormat.CSV) {
+                        if (column > 1) {
+                            encoder.write((byte) ',');
+                        }
+                        encoder.writeCsv(label);
+                    } else {
+                        ByteArrayOutputStream key = new ByteArrayOutputStream();
+                        RecordEncoder keyEncoder = new RecordEncoder(key, 1024);
+                        keyEncoder.write((byte) (column == 1 ? '{' : ','));
+                        keyEncoder.writeJsonString(label);
+                        keyEncoder.write((byte) ':');
+                        keyEncoder.flush();
+                        jsonKeys[column] = key.toByteArray();
+                    }
+                }
+                if (format == ExportFormat.CSV) {
+                    encoder.write(CRLF);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException {
+            try {
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(rs);
+                } else {
+                    writeJsonRow(rs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+            if (progressListener != null && rows % progressEvery == 0) {
+                progressListener.progress(rows, encoder.getBytesWritten(), System.nanoTime() - start);
+            }
+        }
+
+        private void writeCsvRow(ResultSet rs) throws SQLException, IOException {
+            for (int column = 1; column < kinds.length; column++) {
+                if (column > 1) {
+                    encoder.write((byte) ',');
+                }
+                if (kinds[column] != TEXT) {
+                    long value = kinds[column] == INT ? rs.getInt(column) : rs.getLong(column);
+                    if (!rs.wasNull()) {
+                        encoder.writeLong(value);
+                    }
+                } else {
+                    String value = rs.getString(column);
+                    if (value != null) {
+                        encoder.writeCsv(value);
+                    }
+                }
+            }
+            encoder.write(CRLF);
+        }
+
+        private void writeJsonRow(ResultSet rs) throws SQLException, IOException {
+            for (int column = 1; column < kinds.length; column++) {
+                encoder.write(jsonKeys[column]);
+                if (kinds[column] != TEXT) {
+                    long value = kinds[column] == INT ? rs.getInt(column) : rs.getLong(column);
+                    if (rs.wasNull()) {
+                        encoder.write(NULL);
+                    } else {
+                        encoder.writeLong(value);
+                    }
+                } else {
+                    String value = rs.getString(column);
+                    if (value == null) {
+                        encoder.write(NULL);
+                    } else {
+                        encoder.writeJsonString(value);
+                    }
+                }
+            }
+            encoder.write(END_OBJECT);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Lee un CSV de a bloques de bytes y los corta en el último fin de registro, para que cada
+ * bloque se pueda interpretar por separado y en paralelo. Para ubicar ese corte solo mira
+ * comillas y saltos de línea (un salto entre comillas es parte del campo); no decodifica
+ * nada, así que es barato aunque lo haga un único hilo.
+ */
+final class CsvChunkReader {
+
+    /**
+     * Registros completos entre start y end de data, empezando en la línea firstLine del
+     * archivo. data puede tener bytes de más después de end.
+     */
+    record Chunk(byte[] data, int start, int end, long firstLine) {
+    }
+
+    private final ReadableByteChannel channel;
+    private final int chunkSize;
+    private byte[] buffer;
+    private int filled;
+    private long line = 1;
+    private long bytesRead;
+    private boolean eof;
+
+    CsvChunkReader(ReadableByteChannel channel, int chunkSize) {
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.buffer = new byte[chunkSize];
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * El siguiente bloque, o null al final del archivo. Si un registro no entra en el
+     * bloque, el bloque crece hasta contenerlo.
+     */
+    Chunk next() throws IOException {
+        while (true) {
+            while (!eof && filled < buffer.length) {
+                int read = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                    bytesRead += read;
+                }
+            }
+            if (eof) {
+                if (filled == 0) {
+                    return null;
+                }
+                // El último registro puede no terminar en salto de línea.
+                Chunk last = new Chunk(buffer, 0, filled, line);
+                buffer = new byte[0];
+                filled = 0;
+                return last;
+            }
+
+            boolean quoted = false;
+            int boundary = -1;
+            long lines = 0;
+            long linesAtBoundary = 0;
+            for (int i = 0; i < filled; i++) {
+                byte b = buffer[i];
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n') {
+                    lines++;
+                    if (!quoted) {
+                        boundary = i + 1;
+                        linesAtBoundary = lines;
+                    }
+                }
+            }
+            if (boundary < 0) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+
+            Chunk chunk = new Chunk(buffer, 0, boundary, line);
+            int rest = filled - boundary;
+            byte[] next = new byte[Math.max(chunkSize, rest * 2)];
+            System.arraycopy(buffer, boundary, next, 0, rest);
+            buffer = next;
+            filled = rest;
+            line += linesAtBoundary;
+            return chunk;
+        }
+    }
+}
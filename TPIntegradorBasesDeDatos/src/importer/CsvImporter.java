@@ -0,0 +1,508 @@
+package importer;
+
+import dao.PersonaDAO;
+import importer.CsvChunkReader.Chunk;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import metrics.DataLayerMetrics;
+import metrics.OperationMetrics;
+import model.Domicilio;
+import model.Persona;
+import service.PersonaService;
+import service.TransactionManager;
+
+/**
+ * Importa personas desde un CSV en UTF-8 con encabezado y las columnas nombre, edad,
+ * localidad y provincia, en cualquier orden. Las demás columnas se ignoran, así que también
+ * se puede importar lo que genera export.TableExporter: id e id_domicilio no se usan, las
+ * personas reciben IDs nuevos y los domicilios se buscan por (localidad, provincia).
+ *
+ * El archivo pasa por tres etapas:
+ * <ul>
+ * <li>el hilo que llama lee el archivo de a bloques con un FileChannel y los corta en fin
+ *     de registro (ver CsvChunkReader);</li>
+ * <li>parserThreads hilos interpretan los bloques y validan cada persona con
+ *     PersonaService.validateImport, las mismas reglas de PersonaService.importAll;</li>
+ * <li>writerThreads hilos toman los lotes de una cola acotada y los insertan con
+ *     PersonaDAO.importAll, de a getBatchSize() personas por transacción. Con
+ *     rewriteBatchedStatements=true en DB_URL cada lote es un INSERT de varias filas.</li>
+ * </ul>
+ * Si la base no da abasto la cola se llena y la lectura espera, así que la memoria usada no
+ * depende del tamaño del archivo. Los domicilios nuevos se insertan de a uno por vez entre
+ * todos los hilos, para que dos lotes con la misma dirección no la dupliquen.
+ *
+ * Los registros mal formados o inválidos, y los que rechaza la base, van al archivo de
+ * rechazos (ver setRejectFile). Si un lote falla se reintenta por mitades hasta aislar las
+ * personas que fallan, y solo esas se rechazan. Un error de conexión corta la importación
+ * y se propaga; lo ya confirmado queda. Cada importación se registra en DataLayerMetrics
+ * como "Persona.importCsv".
+ */
+public final class CsvImporter {
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(long imported, long rejected, long elapsedNanos);
+    }
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final List<String> COLUMNS = List.of("nombre", "edad", "localidad", "provincia");
+    private static final Batch END = new Batch(null, List.of());
+
+    private final PersonaDAO dao;
+    private final OperationMetrics metrics;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parserThreads = Runtime.getRuntime().availableProcessors();
+    private int writerThreads = 4;
+    private int queueCapacity;
+    private Path rejectFile;
+    private ProgressListener progressListener;
+    private long progressEvery;
+    private Consumer<List<Persona>> commitListener;
+
+    public CsvImporter(PersonaDAO dao) {
+        this.dao = dao;
+        this.metrics = DataLayerMetrics.getInstance().operation("Persona.importCsv");
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Bytes del archivo que se leen e interpretan de una vez.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 4096) {
+            throw new IllegalArgumentException("Los bloques de lectura deben tener al menos 4096 bytes.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    public void setParserThreads(int parserThreads) {
+        if (parserThreads <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos de lectura debe ser mayor a cero.");
+        }
+        this.parserThreads = parserThreads;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    /**
+     * Hilos que insertan, cada uno con su transacción. Conviene que sean menos que
+     * DB_POOL_MAX_SIZE: el pool también tiene que atender la inserción de domicilios.
+     */
+    public void setWriterThreads(int writerThreads) {
+        if (writerThreads <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos de escritura debe ser mayor a cero.");
+        }
+        this.writerThreads = writerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity > 0 ? queueCapacity : writerThreads * 4;
+    }
+
+    /**
+     * Lotes ya interpretados (de getBatchSize() personas del DAO) que pueden esperar a los
+     * hilos de escritura. Por defecto, cuatro por hilo.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("La capacidad de la cola debe ser mayor a cero.");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+
+    /**
+     * Dónde escribir los rechazos: cada registro tal como venía más las columnas linea y
+     * motivo. Se crea solo si hay rechazos. Con null los rechazos solo se cuentan.
+     */
+    public void setRejectFile(Path rejectFile) {
+        this.rejectFile = rejectFile;
+    }
+
+    /**
+     * Llama a listener cada everyRows registros procesados (importados o rechazados).
+     */
+    public void setProgressListener(ProgressListener listener, long everyRows) {
+        if (listener != null && everyRows <= 0) {
+            throw new IllegalArgumentException("La cantidad de filas entre reportes debe ser mayor a cero.");
+        }
+        this.progressListener = listener;
+        this.progressEvery = everyRows;
+    }
+
+    /**
+     * Recibe cada lote recién confirmado, desde los hilos de escritura; por ejemplo
+     * PersonaService::imported, para mantener al día su índice y su filtro de nombres.
+     */
+    public void setCommitListener(Consumer<List<Persona>> listener) {
+        this.commitListener = listener;
+    }
+
+    public ImportResult importFile(Path file) throws IOException, SQLException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Run().execute(new CsvChunkReader(channel, chunkSize));
+        }
+    }
+
+    private record Row(Persona persona, long line, int start, int end) {
+    }
+
+    // Registros válidos de un bloque, hasta getBatchSize(); data es el bloque, para copiar los
+    // rechazos tal como venían.
+    private record Batch(byte[] data, List<Row> rows) {
+    }
+
+    // El estado de una importación.
+    private final class Run {
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(getQueueCapacity());
+        private final ConcurrentHashMap<String, Integer> domicilioIds = new ConcurrentHashMap<>();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong processed = new AtomicLong();
+        private final long start = System.nanoTime();
+        private volatile Throwable failure;
+        private RejectWriter rejects;
+        private int[] columns;
+        private int columnCount;
+
+        ImportResult execute(CsvChunkReader reader) throws IOException, SQLException {
+            boolean failed = true;
+            try {
+                Chunk first = reader.next();
+                Chunk rest = first == null ? null : readHeader(first);
+                pipeline(reader, rest);
+                failed = false;
+            } finally {
+                metrics.record(start, imported.get(), failed);
+            }
+            return new ImportResult(rows.get(), imported.get(), rejected.get(), reader.getBytesRead(), System.nanoTime() - start);
+        }
+
+        // Ubica las columnas y devuelve lo que queda del primer bloque después del encabezado.
+        private Chunk readHeader(Chunk first) {
+            byte[] data = first.data();
+            int from = first.start();
+            // Marca de orden de bytes de UTF-8, que agregan algunas planillas.
+            if (first.end() - from >= 3 && data[from] == (byte) 0xEF && data[from + 1] == (byte) 0xBB && data[from + 2] == (byte) 0xBF) {
+                from += 3;
+            }
+            CsvRecordParser parser = new CsvRecordParser(data, from, first.end(), first.firstLine());
+            List<String> header = new ArrayList<>();
+            if (!parser.next(header) || parser.error() != null) {
+                throw new IllegalArgumentException("No se pudo leer el encabezado del CSV" + (parser.error() == null ? "." : ": " + parser.error()));
+            }
+            columnCount = header.size();
+            columns = new int[COLUMNS.size()];
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                columns[i] = -1;
+                for (int j = 0; j < header.size(); j++) {
+                    if (header.get(j).trim().toLowerCase(Locale.ROOT).equals(COLUMNS.get(i))) {
+                        columns[i] = j;
+                    }
+                }
+                if (columns[i] < 0) {
+                    throw new IllegalArgumentException("Falta la columna " + COLUMNS.get(i) + " en el encabezado del CSV.");
+                }
+            }
+            if (rejectFile != null) {
+                rejects = new RejectWriter(rejectFile, Arrays.copyOfRange(data, parser.recordStart(), parser.recordEnd()));
+            }
+            return new Chunk(data, parser.position(), first.end(), parser.nextLine());
+        }
+
+        private void pipeline(CsvChunkReader reader, Chunk first) throws IOException, SQLException {
+            AtomicInteger parserCount = new AtomicInteger();
+            // Con la cola del pool llena, el hilo lector interpreta el bloque él mismo y deja de leer mientras tanto.
+            ThreadPoolExecutor parsers = new ThreadPoolExecutor(parserThreads, parserThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(parserThreads), r -> {
+                        Thread t = new Thread(r, "csv-import-parser-" + parserCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 1; i <= writerThreads; i++) {
+                Thread writer = new Thread(this::write, "csv-import-writer-" + i);
+                writer.setDaemon(true);
+                writer.start();
+                writers.add(writer);
+            }
+
+            try {
+                try {
+                    for (Chunk chunk = first; chunk != null && failure == null; chunk = reader.next()) {
+                        Chunk current = chunk;
+                        parsers.execute(() -> parse(current));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+                parsers.shutdown();
+                parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                for (int i = 0; i < writers.size(); i++) {
+                    put(END);
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                parsers.shutdownNow();
+                writers.forEach(Thread::interrupt);
+            } finally {
+                if (rejects != null) {
+                    rejects.close();
+                }
+            }
+
+            Throwable cause = failure;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof InterruptedException) {
+                InterruptedIOException interrupted = new InterruptedIOException("Se interrumpió la importación.");
+                interrupted.initCause(cause);
+                throw interrupted;
+            } else if (cause != null) {
+                throw new IllegalStateException("Falló la importación.", cause);
+            }
+        }
+
+        private void parse(Chunk chunk) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                CsvRecordParser parser = new CsvRecordParser(chunk.data(), chunk.start(), chunk.end(), chunk.firstLine());
+                List<String> fields = new ArrayList<>(columnCount);
+                int size = dao.getBatchSize();
+                List<Row> valid = new ArrayList<>(size);
+                long count = 0;
+                while (parser.next(fields)) {
+                    if (parser.error() == null && fields.size() == 1 && fields.get(0).isEmpty()) {
+                        continue;
+                    }
+                    count++;
+                    String reason = parser.error();
+                    Persona persona = null;
+                    if (reason == null && fields.size() != columnCount) {
+                        reason = "Se esperaban " + columnCount + " columnas y hay " + fields.size() + ".";
+                    } else if (reason == null) {
+                        try {
+                            persona = toPersona(fields);
+                            PersonaService.validateImport(persona);
+                        } catch (IllegalArgumentException e) {
+                            reason = e.getMessage();
+                        }
+                    }
+                    Row row = new Row(persona, parser.line(), parser.recordStart(), parser.recordEnd());
+                    if (reason != null) {
+                        reject(chunk.data(), row, reason);
+                        continue;
+                    }
+                    valid.add(row);
+                    // Un lote por transacción, así varios hilos de escritura se reparten un mismo bloque.
+                    if (valid.size() == size) {
+                        put(new Batch(chunk.data(), valid));
+                        valid = new ArrayList<>(size);
+                    }
+                }
+                rows.addAndGet(count);
+                if (!valid.isEmpty()) {
+                    put(new Batch(chunk.data(), valid));
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+
+        private Persona toPersona(List<String> fields) {
+            String edad = fields.get(columns[1]).trim();
+            int value;
+            try {
+                value = Integer.parseInt(edad);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("La edad debe ser un número entero: '" + edad + "'.");
+            }
+            return new Persona(0, fields.get(columns[0]), value, new Domicilio(0, fields.get(columns[2]), fields.get(columns[3])));
+        }
+
+        // Encola el lote esperando lugar; si la importación ya falló, lo descarta.
+        private void put(Batch batch) throws InterruptedException {
+            while (failure == null) {
+                if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+
+        private void write() {
+            try {
+                while (failure == null) {
+                    Batch batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (batch == END) {
+                        return;
+                    }
+                    if (batch != null && failure == null) {
+                        insertOrSplit(batch.data(), batch.rows());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (SQLException | IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        // Una fila que la base no acepta hace fallar todo el lote: se reintenta cada mitad por
+        // separado hasta aislarla, así unas pocas filas malas cuestan unas pocas transacciones
+        // más y no una por fila.
+        private void insertOrSplit(byte[] data, List<Row> part) throws SQLException, IOException {
+            try {
+                insert(part);
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    throw e;
+                }
+                if (part.size() == 1) {
+                    reject(data, part.get(0), e.getMessage());
+                    return;
+                }
+                int half = part.size() / 2;
+                insertOrSplit(data, part.subList(0, half));
+                insertOrSplit(data, part.subList(half, part.size()));
+            }
+        }
+
+        private void insert(List<Row> part) throws SQLException {
+            List<Persona> personas = new ArrayList<>(part.size());
+            for (Row row : part) {
+                // Por si un intento anterior llegó a asignarle ID antes de fallar.
+                row.persona().setId(0);
+                personas.add(row.persona());
+            }
+            resolveDomicilios(personas);
+            TransactionManager.requiresNew("CsvImporter.insert", conn -> dao.importAll(conn, personas));
+            if (commitListener != null) {
+                commitListener.accept(personas);
+            }
+            advance(imported, personas.size());
+        }
+
+        // Los IDs de domicilio ya conocidos salen del mapa; los demás se resuelven de a un
+        // lote por vez y en su propia transacción, así ningún otro hilo inserta la misma
+        // dirección en paralelo ni referencia una que todavía no se confirmó.
+        private void resolveDomicilios(List<Persona> personas) throws SQLException {
+            List<Persona> pending = withoutKnownDomicilio(personas);
+            if (pending.isEmpty()) {
+                return;
+            }
+            synchronized (domicilioIds) {
+                List<Persona> nuevos = withoutKnownDomicilio(pending);
+                if (nuevos.isEmpty()) {
+                    return;
+                }
+                TransactionManager.requiresNew("CsvImporter.resolveDomicilios", conn -> {
+                    nuevos.forEach(p -> p.getDomicilio().setId(0));
+                    dao.resolveDomicilios(conn, nuevos);
+                    return null;
+                });
+                for (Persona persona : nuevos) {
+                    domicilioIds.putIfAbsent(domicilioKey(persona.getDomicilio()), persona.getDomicilio().getId());
+                }
+            }
+        }
+
+        private List<Persona> withoutKnownDomicilio(List<Persona> personas) {
+            List<Persona> pending = new ArrayList<>();
+            for (Persona persona : personas) {
+                Integer id = domicilioIds.get(domicilioKey(persona.getDomicilio()));
+                if (id != null) {
+                    persona.getDomicilio().setId(id);
+                } else {
+                    pending.add(persona);
+                }
+            }
+            return pending;
+        }
+
+        private void reject(byte[] data, Row row, String reason) throws IOException {
+            if (rejects != null) {
+                rejects.reject(data, row.start(), row.end(), row.line(), reason);
+            }
+            advance(rejected, 1);
+        }
+
+        private void advance(AtomicLong counter, long count) {
+            counter.addAndGet(count);
+            long done = processed.addAndGet(count);
+            if (progressListener != null && (done - count) / progressEvery != done / progressEvery) {
+                synchronized (this) {
+                    progressListener.progress(imported.get(), rejected.get(), System.nanoTime() - start);
+                }
+            }
+        }
+
+        private void fail(Throwable e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                } else if (failure != e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    // La clave exacta: una misma dirección escrita con otras mayúsculas no se encuentra en el
+    // mapa, pero PersonaDAO.resolveDomicilios la encuentra en la tabla y no la duplica.
+    private static String domicilioKey(Domicilio domicilio) {
+        return domicilio.getLocalidad() + '\u0000' + domicilio.getProvincia();
+    }
+
+    // Sin conexión no tiene sentido seguir probando fila por fila.
+    private static boolean isConnectionError(SQLException e) {
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLTimeoutException || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+}
@@ -0,0 +1,152 @@
+package importer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recorre los registros CSV (RFC 4180, en UTF-8) de un bloque de bytes. Los campos se
+ * decodifican directo desde el bloque; solo los que tienen comillas duplicadas pasan por un
+ * buffer auxiliar. Acepta fin de línea \n o \r\n.
+ */
+final class CsvRecordParser {
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+    private long line;
+    private byte[] scratch = new byte[256];
+
+    private int recordStart;
+    private int recordEnd;
+    private long recordLine;
+    private String error;
+
+    CsvRecordParser(byte[] data, int start, int end, long firstLine) {
+        this.data = data;
+        this.position = start;
+        this.end = end;
+        this.line = firstLine;
+    }
+
+    /**
+     * Lee el siguiente registro y deja sus campos en fields. Devuelve false si no quedan.
+     * Si el registro está mal formado, {@link #error()} dice por qué y fields queda a medio
+     * llenar.
+     */
+    boolean next(List<String> fields) {
+        fields.clear();
+        error = null;
+        if (position >= end) {
+            return false;
+        }
+        recordStart = position;
+        recordLine = line;
+        while (true) {
+            if (position < end && data[position] == '"') {
+                position = readQuoted(fields);
+                if (error != null) {
+                    skipRecord();
+                    return true;
+                }
+            } else {
+                int from = position;
+                while (position < end && data[position] != ',' && data[position] != '\n' && data[position] != '\r') {
+                    position++;
+                }
+                fields.add(new String(data, from, position - from, StandardCharsets.UTF_8));
+            }
+            if (position < end && data[position] == ',') {
+                position++;
+                continue;
+            }
+            recordEnd = position;
+            if (position < end && data[position] == '\r') {
+                position++;
+            }
+            if (position < end && data[position] == '\n') {
+                position++;
+                line++;
+            }
+            return true;
+        }
+    }
+
+    // Campo entre comillas desde position; devuelve la posición después de la comilla de cierre.
+    private int readQuoted(List<String> fields) {
+        int i = position + 1;
+        int length = 0;
+        while (true) {
+            if (i >= end) {
+                error = "Campo entre comillas sin cerrar.";
+                return i;
+            }
+            byte b = data[i];
+            if (b == '"') {
+                if (i + 1 < end && data[i + 1] == '"') {
+                    i++;
+                } else {
+                    break;
+                }
+            } else if (b == '\n') {
+                line++;
+            }
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[length++] = data[i++];
+        }
+        i++;
+        if (i < end && data[i] != ',' && data[i] != '\n' && data[i] != '\r') {
+            error = "Hay texto después de las comillas de cierre de un campo.";
+            return i;
+        }
+        fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        return i;
+    }
+
+    // Tras un error, avanza hasta el fin de línea para seguir con el registro siguiente.
+    private void skipRecord() {
+        while (position < end && data[position] != '\n') {
+            position++;
+        }
+        recordEnd = position > recordStart && data[position - 1] == '\r' ? position - 1 : position;
+        if (position < end) {
+            position++;
+            line++;
+        }
+    }
+
+    /**
+     * Dónde empieza el registro siguiente y en qué línea.
+     */
+    int position() {
+        return position;
+    }
+
+    long nextLine() {
+        return line;
+    }
+
+    int recordStart() {
+        return recordStart;
+    }
+
+    /**
+     * Fin del registro actual, sin el salto de línea.
+     */
+    int recordEnd() {
+        return recordEnd;
+    }
+
+    /**
+     * Línea del archivo en la que empieza el registro actual.
+     */
+    long line() {
+        return recordLine;
+    }
+
+    String error() {
+        return error;
+    }
+}
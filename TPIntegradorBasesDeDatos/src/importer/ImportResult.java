@@ -0,0 +1,18 @@
+package importer;
+
+/**
+ * Resultado de una importación: registros leídos (sin el encabezado ni las líneas en
+ * blanco), cuántos se insertaron y cuántos fueron al archivo de rechazos.
+ */
+public record ImportResult(long rows, long imported, long rejected, long bytes, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d filas (%d importadas, %d rechazadas), %.1f MB en %.2f s (%.0f filas/s)",
+                rows, imported, rejected, bytes / 1_048_576.0, elapsedNanos / 1e9, rowsPerSecond());
+    }
+}
@@ -0,0 +1,57 @@
+package importer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Archivo de rechazos: cada registro rechazado tal como venía, con dos columnas más al
+ * final, la línea del archivo original y el motivo. El encabezado es el del original con
+ * esas dos columnas, así el archivo se puede corregir e importar de nuevo (el importador
+ * ignora las columnas que no conoce). El archivo se crea recién con el primer rechazo.
+ */
+final class RejectWriter implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final Path file;
+    private final byte[] header;
+    private OutputStream out;
+
+    RejectWriter(Path file, byte[] header) {
+        this.file = file;
+        this.header = header;
+    }
+
+    synchronized void reject(byte[] data, int start, int end, long line, String reason) throws IOException {
+        if (out == null) {
+            out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+            out.write(header);
+            out.write(",linea,motivo".getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        }
+        out.write(data, start, end - start);
+        int quotes = 0;
+        for (int i = start; i < end; i++) {
+            if (data[i] == '"') {
+                quotes++;
+            }
+        }
+        // Un campo entre comillas sin cerrar se tragaría el resto del archivo de rechazos.
+        if (quotes % 2 != 0) {
+            out.write('"');
+        }
+        out.write(("," + line + ",\"" + (reason == null ? "" : reason.replace("\"", "\"\"")) + "\"").getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package main;
+
+import dao.BaseDAO;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import export.ExportFormat;
+import export.ExportResult;
+import export.TableExporter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exporta personas o domicilios de la base del .env a CSV o JSON Lines (ver
+ * export.TableExporter), mostrando el avance en filas por segundo.
+ *
+ * Argumentos (todos opcionales, con la forma --clave=valor):
+ * <pre>
+ * --table=personas     personas (con las columnas de su domicilio) o domicilios
+ * --format=csv         csv o jsonl
+ * --gzip=false         comprimir la salida
+ * --out=&lt;table&gt;.&lt;format&gt;[.gz]  archivo de salida
+ * --report=100000      filas entre reportes de avance
+ * </pre>
+ */
+public class Export {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Argumento ignorado (se espera --clave=valor): " + arg);
+                continue;
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String table = options.getOrDefault("table", "personas");
+        ExportFormat format = ExportFormat.valueOf(options.getOrDefault("format", "csv").toUpperCase(Locale.ROOT));
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "false"));
+        long report = Long.parseLong(options.getOrDefault("report", "100000"));
+        Path out = Paths.get(options.getOrDefault("out", table + "." + format.getExtension() + (gzip ? ".gz" : "")));
+
+        BaseDAO<?, ?> dao;
+        switch (table) {
+            case "personas":
+                dao = new PersonaDAO(new DomicilioDAO());
+                break;
+            case "domicilios":
+                dao = new DomicilioDAO();
+                break;
+            default:
+                throw new IllegalArgumentException("Tabla desconocida: " + table + " (se espera personas o domicilios).");
+        }
+
+        TableExporter exporter = new TableExporter(dao, format);
+        exporter.setProgressListener((rows, bytes, elapsedNanos) -> System.out.printf(Locale.ROOT,
+                "%,d filas, %.1f MB, %.0f filas/s%n", rows, bytes / 1_048_576.0, rows * 1e9 / elapsedNanos), report);
+        ExportResult result = exporter.export(out, gzip);
+        System.out.println("Exportación de " + table + " a " + out.toAbsolutePath() + ": " + result);
+    }
+}
@@ -0,0 +1,76 @@
+package main;
+
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import importer.CsvImporter;
+import importer.ImportResult;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importa personas desde un CSV a la base del .env (ver importer.CsvImporter), mostrando
+ * el avance en filas por segundo.
+ *
+ * Argumentos (con la forma --clave=valor; solo --file es obligatorio):
+ * <pre>
+ * --file=personas.csv   CSV con encabezado y columnas nombre, edad, localidad y provincia
+ * --rejects=&lt;file&gt;.rechazos.csv  archivo de rechazos
+ * --writers=4           hilos que insertan, cada uno con su conexión
+ * --parsers=&lt;núcleos&gt;   hilos que interpretan y validan
+ * --chunk=1024          KB del archivo que se leen de una vez
+ * --report=100000       filas entre reportes de avance
+ * </pre>
+ */
+public class Import {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Argumento ignorado (se espera --clave=valor): " + arg);
+                continue;
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String fileName = options.get("file");
+        if (fileName == null) {
+            throw new IllegalArgumentException("Falta el archivo a importar (--file=...).");
+        }
+        Path file = Paths.get(fileName);
+        String baseName = fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        Path rejects = Paths.get(options.getOrDefault("rejects", baseName + ".rechazos.csv"));
+        long report = Long.parseLong(options.getOrDefault("report", "100000"));
+
+        CsvImporter importer = new CsvImporter(new PersonaDAO(new DomicilioDAO()));
+        if (options.containsKey("writers")) {
+            importer.setWriterThreads(Integer.parseInt(options.get("writers")));
+        }
+        if (options.containsKey("parsers")) {
+            importer.setParserThreads(Integer.parseInt(options.get("parsers")));
+        }
+        if (options.containsKey("chunk")) {
+            importer.setChunkSize(Integer.parseInt(options.get("chunk")) * 1024);
+        }
+        importer.setRejectFile(rejects);
+        long[] last = {0, 0};
+        importer.setProgressListener((imported, rejected, elapsedNanos) -> {
+            long rows = imported + rejected;
+            // Ritmo del último intervalo además del promedio, para ver si la carga se frena.
+            double recent = (rows - last[0]) * 1e9 / Math.max(1, elapsedNanos - last[1]);
+            last[0] = rows;
+            last[1] = elapsedNanos;
+            System.out.printf(Locale.ROOT, "%,d filas (%,d rechazadas), %.0f filas/s, %.0f filas/s en promedio%n",
+                    rows, rejected, recent, rows * 1e9 / elapsedNanos);
+        }, report);
+
+        ImportResult result = importer.importFile(file);
+        System.out.println("Importación de " + file.toAbsolutePath() + ": " + result);
+        if (result.rejected() > 0) {
+            System.out.println("Rechazos en " + rejects.toAbsolutePath());
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import config.DatabaseConnection;
+import dao.CachedDomicilioDAO;
 import dao.DomicilioDAO;
 import dao.PersonaDAO;
 import model.Domicilio;
@@ -16,7 +17,8 @@ public class Main {
 
         // 1. Instantiate DAOs
         // DomicilioDAO is needed first as PersonaDAO depends on it.
-        DomicilioDAO domicilioDAO = new DomicilioDAO();
+        // With DB_PERSONA_CACHE_SIZE set, PersonaService needs the cached DomicilioDAO.
+        DomicilioDAO domicilioDAO = PersonaService.isCacheConfigured() ? new CachedDomicilioDAO() : new DomicilioDAO();
         PersonaDAO personaDAO = new PersonaDAO(domicilioDAO); 
 
         // 2. Instantiate Services
@@ -55,14 +57,17 @@ public class Main {
         System.out.println("\n*** Updating Persona ***");
             persona1.setNombre("Juan Carlos Perez"); // Update name
             persona1.setEdad(31); // Update age
-            // Update associated Domicilio details (this will trigger DomicilioDAO.update via PersonaDAO.update)
-            // Ensure the Domicilio object has its ID set if it's an existing one being updated.
+            // PersonaService.update only writes nombre/edad; the Domicilio (possibly shared by
+            // other personas) is updated explicitly through DomicilioService.
             if(persona1.getDomicilio() != null) { // Add a check for null Domicilio
                 persona1.getDomicilio().setLocalidad("Godoy Cruz");
                 persona1.getDomicilio().setProvincia("Mendoza");
             }
 
             try {
+                if (persona1.getDomicilio() != null) {
+                    domicilioService.update(persona1.getDomicilio());
+                }
                 Persona updatedPersona = personaService.update(persona1);
                 System.out.println("Persona actualizada con éxito: " + updatedPersona);
             } catch (RuntimeException e) {
@@ -0,0 +1,523 @@
+package main;
+
+import config.ConnectionPool;
+import config.DatabaseConnection;
+import dao.CachedDomicilioDAO;
+import dao.DomicilioDAO;
+import dao.NameMatch;
+import dao.PersonaDAO;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import metrics.DataLayerMetrics;
+import metrics.LatencyHistogram;
+import model.Domicilio;
+import model.Persona;
+import service.DomicilioService;
+import service.PersonaService;
+import service.RetryPolicy;
+import service.TransactionManager;
+
+/**
+ * Generador de carga sobre PersonaService y DomicilioService. Varios hilos ejecutan una
+ * mezcla configurable de operaciones sobre IDs existentes, elegidos de forma uniforme o
+ * zipfiana (pocas filas muy usadas, como pasa con los domicilios compartidos). Cada
+ * intervalo imprime throughput, percentiles de latencia, errores, rollbacks y el estado
+ * del pool; al final imprime el resumen por operación.
+ *
+ * Argumentos (todos opcionales, con la forma --clave=valor):
+ * <pre>
+ * --threads=8            hilos que generan carga
+ * --duration=60          segundos de medición
+ * --warmup=10            segundos previos cuyos resultados se descartan
+ * --rate=0               operaciones por segundo en total; 0 = lazo cerrado (cada hilo sin pausa)
+ * --think-ms=0           pausa entre operaciones en lazo cerrado
+ * --mix=persona.read:55,persona.update:10,persona.updateDomicilio:5,persona.create:10,persona.delete:5,domicilio.read:10,domicilio.update:5
+ *                        (también persona.page y persona.pageNombre, la misma página con la
+ *                        proyección PersonaDAO.NOMBRE, y persona.search y persona.suggest,
+ *                        búsqueda y autocompletado por prefijo); los pesos son relativos
+ * --keys=uniform         uniform o zipfian
+ * --zipf-theta=0.99      sesgo de la distribución zipfiana (0 &lt; theta &lt; 1)
+ * --report=5             segundos entre reportes
+ * --seed-personas=0      si hay menos personas, se importan hasta llegar a este número
+ * --seed-domicilios=100  domicilios distintos entre los que se reparten las personas importadas
+ * --cached-domicilios=false  usar CachedDomicilioDAO; por defecto, sí cuando DB_PERSONA_CACHE_SIZE
+ *                        habilita el cache de personas, que lo necesita
+ * </pre>
+ * Con --rate la latencia se mide desde el momento en que la operación debía empezar, así
+ * las esperas por un sistema saturado también cuentan.
+ */
+public class WorkloadDriver {
+
+    enum Operation {
+        PERSONA_READ("persona.read"),
+        PERSONA_UPDATE("persona.update"),
+        PERSONA_UPDATE_DOMICILIO("persona.updateDomicilio"),
+        PERSONA_CREATE("persona.create"),
+        PERSONA_DELETE("persona.delete"),
+        PERSONA_PAGE("persona.page"),
+        PERSONA_PAGE_NOMBRE("persona.pageNombre"),
+        PERSONA_SEARCH("persona.search"),
+        PERSONA_SUGGEST("persona.suggest"),
+        DOMICILIO_READ("domicilio.read"),
+        DOMICILIO_UPDATE("domicilio.update");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        static Operation fromLabel(String label) {
+            for (Operation op : values()) {
+                if (op.label.equalsIgnoreCase(label.trim())) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Operación desconocida en --mix: " + label);
+        }
+    }
+
+    /**
+     * Contadores de una operación. Los de intervalo se leen y se ponen en cero en cada reporte.
+     */
+    static final class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rollbacks = new LongAdder();
+
+        void reset() {
+            latency.reset();
+            errors.reset();
+            rollbacks.reset();
+        }
+    }
+
+    /**
+     * Generador zipfiano de Gray et al. (el mismo que usa YCSB): devuelve índices en [0, n)
+     * donde los más bajos salen mucho más seguido.
+     */
+    static final class ZipfianGenerator {
+        private final int n;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        ZipfianGenerator(int n, double theta) {
+            this.n = n;
+            this.theta = theta;
+            this.zetan = zeta(n, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        int next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return Math.min(1, n - 1);
+            }
+            return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+
+    private final Map<String, String> options;
+    private final int threads;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final double rate;
+    private final long thinkMillis;
+    private final long reportSeconds;
+    private final boolean zipfian;
+    private final double zipfTheta;
+    private final Operation[] mix;
+
+    private final PersonaService personaService;
+    private final DomicilioService domicilioService;
+    private final EnumMap<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final LatencyHistogram intervalLatency = new LatencyHistogram();
+    private final LongAdder intervalErrors = new LongAdder();
+    private final LongAdder intervalRollbacks = new LongAdder();
+    // IDs creados por esta corrida: persona.delete solo borra de acá para no vaciar los datos de prueba.
+    private final ConcurrentLinkedQueue<Integer> createdPersonas = new ConcurrentLinkedQueue<>();
+
+    private int[] personaIds;
+    private int[] domicilioIds;
+    private ZipfianGenerator personaKeys;
+    private ZipfianGenerator domicilioKeys;
+    private volatile boolean running = true;
+
+    WorkloadDriver(Map<String, String> options) {
+        this.options = options;
+        this.threads = intOption("threads", 8);
+        this.durationSeconds = intOption("duration", 60);
+        this.warmupSeconds = intOption("warmup", 10);
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        this.thinkMillis = intOption("think-ms", 0);
+        this.reportSeconds = Math.max(1, intOption("report", 5));
+        String keys = options.getOrDefault("keys", "uniform");
+        if (!keys.equals("uniform") && !keys.equals("zipfian")) {
+            throw new IllegalArgumentException("--keys debe ser uniform o zipfian.");
+        }
+        this.zipfian = keys.equals("zipfian");
+        this.zipfTheta = Double.parseDouble(options.getOrDefault("zipf-theta", "0.99"));
+        if (zipfTheta <= 0 || zipfTheta >= 1) {
+            throw new IllegalArgumentException("--zipf-theta debe estar entre 0 y 1 (sin incluirlos).");
+        }
+        if (threads <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || rate < 0) {
+            throw new IllegalArgumentException("--threads y --duration deben ser positivos; --warmup y --rate no pueden ser negativos.");
+        }
+        this.mix = parseMix(options.getOrDefault("mix",
+                "persona.read:55,persona.update:10,persona.updateDomicilio:5,persona.create:10,persona.delete:5,domicilio.read:10,domicilio.update:5"));
+        for (Operation op : Operation.values()) {
+            stats.put(op, new OperationStats());
+        }
+
+        DomicilioDAO domicilioDao = Boolean.parseBoolean(options.getOrDefault("cached-domicilios",
+                String.valueOf(PersonaService.isCacheConfigured())))
+                ? new CachedDomicilioDAO() : new DomicilioDAO();
+        this.personaService = new PersonaService(new PersonaDAO(domicilioDao));
+        this.domicilioService = new DomicilioService(domicilioDao);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " debe ser un número entero: " + value, e);
+        }
+    }
+
+    /**
+     * Convierte "persona.read:60,persona.update:40" en una tabla de 100 entradas, así elegir
+     * la operación es un solo índice al azar.
+     */
+    private static Operation[] parseMix(String spec) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        int total = 0;
+        for (String part : spec.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Cada entrada de --mix debe tener la forma operación:peso (" + part + ").");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Los pesos de --mix no pueden ser negativos.");
+            }
+            weights.merge(Operation.fromLabel(pair[0]), weight, Integer::sum);
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("--mix tiene que incluir al menos una operación con peso mayor a cero.");
+        }
+        List<Operation> table = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> e : weights.entrySet()) {
+            long slots = Math.round(100.0 * e.getValue() / total);
+            for (int i = 0; i < Math.max(e.getValue() > 0 ? 1 : 0, slots); i++) {
+                table.add(e.getKey());
+            }
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Argumento ignorado (se espera --clave=valor): " + arg);
+                continue;
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new WorkloadDriver(options).run();
+    }
+
+    void run() throws Exception {
+        seed(intOption("seed-personas", 0), Math.max(1, intOption("seed-domicilios", 100)));
+        loadKeys();
+        System.out.printf(Locale.ROOT, "Carga: %d hilos, %s, claves %s, %d personas y %d domicilios, mezcla %s%n",
+                threads, rate > 0 ? String.format(Locale.ROOT, "%.0f op/s", rate) : "lazo cerrado",
+                zipfian ? "zipfian(" + zipfTheta + ")" : "uniformes", personaIds.length, domicilioIds.length, describeMix());
+
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> work(start), "workload-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        if (warmupSeconds > 0) {
+            System.out.println("Calentando " + warmupSeconds + " s...");
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+        }
+        resetCounters();
+        System.out.println("   seg     op/s    p50(ms)   p99(ms)  p999(ms)  errores  rollbacks  conexiones(act/esp)");
+        long measureStart = System.nanoTime();
+        long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastReport = measureStart;
+        while (System.nanoTime() < measureEnd) {
+            long sleep = Math.min(TimeUnit.SECONDS.toNanos(reportSeconds), measureEnd - System.nanoTime());
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, sleep));
+            long now = System.nanoTime();
+            report(now - measureStart, now - lastReport);
+            lastReport = now;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        summary(System.nanoTime() - measureStart);
+    }
+
+    private String describeMix() {
+        return Stream.of(mix).collect(Collectors.groupingBy(op -> op.label, LinkedHashMap::new, Collectors.counting())).toString();
+    }
+
+    private void seed(int personas, int domicilios) {
+        if (personas <= 0) {
+            return;
+        }
+        long existing;
+        try (Stream<Persona> all = personaService.streamAll()) {
+            existing = all.count();
+        }
+        if (existing >= personas) {
+            return;
+        }
+        List<Persona> nuevas = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long i = existing; i < personas; i++) {
+            int d = random.nextInt(domicilios);
+            nuevas.add(new Persona(0, "Carga " + i, 18 + random.nextInt(70), new Domicilio(0, "Localidad " + d, "Provincia " + d % 24)));
+        }
+        System.out.println("Importando " + nuevas.size() + " personas...");
+        personaService.importAll(nuevas);
+    }
+
+    private void loadKeys() {
+        try (Stream<Persona> all = personaService.streamAll()) {
+            personaIds = all.mapToInt(Persona::getId).toArray();
+        }
+        try (Stream<Domicilio> all = domicilioService.streamAll()) {
+            domicilioIds = all.mapToInt(Domicilio::getId).toArray();
+        }
+        if (personaIds.length == 0 || domicilioIds.length == 0) {
+            throw new IllegalStateException("No hay personas o domicilios para generar carga; use --seed-personas.");
+        }
+        if (zipfian) {
+            personaKeys = new ZipfianGenerator(personaIds.length, zipfTheta);
+            domicilioKeys = new ZipfianGenerator(domicilioIds.length, zipfTheta);
+        }
+    }
+
+    private int pick(int[] ids, ZipfianGenerator keys) {
+        return ids[keys != null ? keys.next() : ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private void work(long start) {
+        // Con --rate cada hilo tiene su propio ritmo y las operaciones se programan en instantes fijos.
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * threads / rate) : 0;
+        long next = start + (intervalNanos > 0 ? ThreadLocalRandom.current().nextLong(intervalNanos) : 0);
+        while (running) {
+            long scheduled;
+            if (intervalNanos > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                scheduled = next;
+                next += intervalNanos;
+            } else {
+                scheduled = System.nanoTime();
+            }
+            Operation op = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+            execute(op, scheduled);
+            if (thinkMillis > 0 && intervalNanos == 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(thinkMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void execute(Operation op, long scheduled) {
+        OperationStats opStats = stats.get(op);
+        try {
+            perform(op);
+        } catch (RuntimeException e) {
+            opStats.errors.increment();
+            intervalErrors.increment();
+            // Un error de SQL dentro de una transacción del servicio implica rollback.
+            if (isRollback(e)) {
+                opStats.rollbacks.increment();
+                intervalRollbacks.increment();
+            }
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+        opStats.latency.record(micros);
+        intervalLatency.record(micros);
+    }
+
+    private static boolean isRollback(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void perform(Operation op) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case PERSONA_READ:
+                personaService.read(pick(personaIds, personaKeys));
+                break;
+            case PERSONA_UPDATE: {
+                Optional<Persona> persona = personaService.read(pick(personaIds, personaKeys));
+                if (persona.isPresent()) {
+                    Persona p = persona.get();
+                    p.setEdad(p.getEdad() >= 90 ? 18 : p.getEdad() + 1);
+                    personaService.update(p);
+                }
+                break;
+            }
+            case PERSONA_UPDATE_DOMICILIO: {
+                // Modifica el domicilio de una persona: varias personas comparten el mismo
+                // domicilio, así que es la fila que más se disputa. PersonaService.update no
+                // escribe el domicilio; se actualiza explícitamente con DomicilioService.
+                Optional<Persona> persona = personaService.read(pick(personaIds, personaKeys));
+                if (persona.isPresent() && persona.get().getDomicilio() != null) {
+                    Persona p = persona.get();
+                    String localidad = p.getDomicilio().getLocalidad();
+                    p.getDomicilio().setLocalidad(localidad.endsWith("*") ? localidad.substring(0, localidad.length() - 1) : localidad + "*");
+                    domicilioService.update(p.getDomicilio());
+                }
+                break;
+            }
+            case PERSONA_CREATE: {
+                Optional<Domicilio> domicilio = domicilioService.read(pick(domicilioIds, domicilioKeys));
+                Domicilio d = domicilio.orElseGet(() -> new Domicilio(0, "Localidad nueva", "Mendoza"));
+                Persona created = personaService.create(new Persona(0, "Carga " + random.nextInt(1_000_000), 18 + random.nextInt(70), d));
+                createdPersonas.add(created.getId());
+                break;
+            }
+            case PERSONA_DELETE: {
+                Integer id = createdPersonas.poll();
+                if (id != null) {
+                    personaService.delete(id);
+                } else {
+                    personaService.read(pick(personaIds, personaKeys));
+                }
+                break;
+            }
+            case PERSONA_PAGE:
+                personaService.findPage(null, 50);
+                break;
+            case PERSONA_PAGE_NOMBRE:
+                personaService.findPage(PersonaDAO.NOMBRE, null, 50);
+                break;
+            case PERSONA_SEARCH:
+                // Las personas de la carga se llaman "Carga <n>": prefijos de uno o dos dígitos.
+                personaService.searchByNombre("Carga " + random.nextInt(1, 100), NameMatch.PREFIX, null, 20);
+                break;
+            case PERSONA_SUGGEST:
+                personaService.suggestNombres("Carga " + random.nextInt(1, 100), 10);
+                break;
+            case DOMICILIO_READ:
+                domicilioService.read(pick(domicilioIds, domicilioKeys));
+                break;
+            case DOMICILIO_UPDATE: {
+                Optional<Domicilio> domicilio = domicilioService.read(pick(domicilioIds, domicilioKeys));
+                if (domicilio.isPresent()) {
+                    Domicilio d = domicilio.get();
+                    String provincia = d.getProvincia();
+                    d.setProvincia(provincia.endsWith("*") ? provincia.substring(0, provincia.length() - 1) : provincia + "*");
+                    domicilioService.update(d);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Operación sin implementar: " + op);
+        }
+    }
+
+    private void resetCounters() {
+        stats.values().forEach(OperationStats::reset);
+        intervalLatency.reset();
+        intervalErrors.reset();
+        intervalRollbacks.reset();
+        DataLayerMetrics.getInstance().reset();
+    }
+
+    private void report(long elapsedNanos, long intervalNanos) {
+        LatencyHistogram.Snapshot snapshot = intervalLatency.snapshot(true);
+        double seconds = intervalNanos / 1e9;
+        ConnectionPool pool = DatabaseConnection.getPool();
+        String connections = pool == null ? "sin pool" : pool.getActiveConnections() + "/" + pool.getThreadsAwaitingConnection();
+        System.out.printf(Locale.ROOT, "%6.0f %8.1f %10.2f %9.2f %9.2f %8d %10d  %s%n",
+                elapsedNanos / 1e9, snapshot.getCount() / seconds,
+                snapshot.percentile(0.50) / 1000.0, snapshot.percentile(0.99) / 1000.0, snapshot.percentile(0.999) / 1000.0,
+                intervalErrors.sumThenReset(), intervalRollbacks.sumThenReset(), connections);
+    }
+
+    private void summary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("Resumen por operación:");
+        System.out.println("operación                      ops     op/s    p50(ms)   p99(ms)  p999(ms)   max(ms)  errores  rollbacks");
+        for (Map.Entry<Operation, OperationStats> e : stats.entrySet()) {
+            LatencyHistogram.Snapshot s = e.getValue().latency.snapshot(false);
+            if (s.getCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-26s %8d %8.1f %10.2f %9.2f %9.2f %9.2f %8d %10d%n",
+                    e.getKey().label, s.getCount(), s.getCount() / seconds,
+                    s.percentile(0.50) / 1000.0, s.percentile(0.99) / 1000.0, s.percentile(0.999) / 1000.0, s.getMax() / 1000.0,
+                    e.getValue().errors.sum(), e.getValue().rollbacks.sum());
+        }
+        RetryPolicy retries = TransactionManager.getRetryPolicy();
+        System.out.println();
+        System.out.println("Reintentos por contención: " + retries.getRetryCounts() + ", abandonados: " + retries.getExhaustedCounts());
+        ConnectionPool pool = DatabaseConnection.getPool();
+        if (pool != null) {
+            System.out.println("Pool: " + pool);
+        }
+        if (personaService.getCache() != null) {
+            System.out.println("Cache de personas: " + personaService.getCache());
+        }
+        System.out.println(DataLayerMetrics.getInstance());
+    }
+}
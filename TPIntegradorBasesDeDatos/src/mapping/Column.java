@@ -0,0 +1,20 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Campo guardado en una columna de la tabla. Tipos admitidos: int, long, double, boolean,
+ * String, BigDecimal, LocalDate y los envoltorios Integer, Long, Double y Boolean.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Column {
+
+    /**
+     * Nombre de la columna; vacío usa el nombre del campo.
+     */
+    String name() default "";
+}
@@ -0,0 +1,20 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Campo int con la clave primaria autoincremental. No se incluye en el INSERT; el valor
+ * generado se asigna con setXxx(int).
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Id {
+
+    /**
+     * Nombre de la columna; vacío usa el nombre del campo.
+     */
+    String name() default "";
+}
@@ -0,0 +1,27 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Referencia a otra entidad anotada con {@link Table} por una clave foránea. El SELECT
+ * generado hace el join y trae las columnas de la entidad relacionada, que se arma en
+ * la misma fila; en INSERT y UPDATE se escribe solo la clave foránea. La entidad
+ * relacionada no puede tener relaciones propias.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Relation {
+
+    /**
+     * Columna con la clave foránea, por ejemplo "id_domicilio".
+     */
+    String column();
+
+    /**
+     * Con true el join es LEFT JOIN y una clave foránea nula deja el campo en null.
+     */
+    boolean optional() default false;
+}
@@ -0,0 +1,22 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca una clase del modelo como entidad de la tabla name. El procesador de processor/src
+ * genera en tiempo de compilación la clase &lt;Entidad&gt;Mapping (en el paquete dao) con el
+ * SQL, el mapeo de filas y el bindeo de parámetros, sin reflexión.
+ *
+ * La entidad necesita un constructor público cuyos parámetros sean, en orden, los campos
+ * anotados con {@link Id}, {@link Column} y {@link Relation}, y getters públicos para cada uno.
+ * Si tiene un método markClean() se llama después de armarla desde una fila.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Table {
+
+    String name();
+}
@@ -0,0 +1,131 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registro único de métricas de la capa de datos. Los servicios registran cada operación
+ * CRUD por entidad y DatabaseConnection registra cuánto tarda en conseguir cada conexión.
+ * Al crearse se publica como MXBean en el servidor JMX de la plataforma.
+ */
+public final class DataLayerMetrics implements DataLayerMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(DataLayerMetrics.class.getName());
+
+    public static final String OBJECT_NAME = "integradorprog2:type=DataLayerMetrics";
+    public static final String CONNECTION_ACQUISITION = "connection.acquire";
+
+    private static final DataLayerMetrics INSTANCE = new DataLayerMetrics();
+
+    static {
+        INSTANCE.register();
+    }
+
+    private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final OperationMetrics connectionAcquisition = new OperationMetrics(CONNECTION_ACQUISITION);
+    private final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    private DataLayerMetrics() {
+    }
+
+    public static DataLayerMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            // Sin JMX las métricas se siguen juntando y se pueden leer desde el código.
+            LOGGER.log(Level.WARNING, "No se pudieron publicar las métricas por JMX.", e);
+        }
+    }
+
+    /**
+     * Contadores de la operación con ese nombre; se crean la primera vez que se piden.
+     * Conviene guardarlos en un campo en vez de pedirlos en cada llamada.
+     */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    /**
+     * Estadísticas de una forma de SQL (ver JdbcInstrumentation); se crean la primera vez que se piden.
+     */
+    public StatementStats statement(String normalizedSql) {
+        StatementStats stats = statements.get(normalizedSql);
+        return stats != null ? stats : statements.computeIfAbsent(normalizedSql, StatementStats::new);
+    }
+
+    public void recordConnectionAcquisition(long elapsedNanos, boolean failed) {
+        connectionAcquisition.recordNanos(elapsedNanos, 0, failed);
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        return snapshot(false);
+    }
+
+    @Override
+    public OperationStats getConnectionAcquisition() {
+        return connectionAcquisition.snapshot(false);
+    }
+
+    @Override
+    public Map<String, StatementSnapshot> getStatements() {
+        Map<String, StatementSnapshot> result = new TreeMap<>();
+        statements.forEach((sql, stats) -> result.put(sql, stats.snapshot(false)));
+        return result;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        return operations.values().stream().mapToLong(m -> m.snapshot(false).getCalls()).sum();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return operations.values().stream().mapToLong(m -> m.snapshot(false).getErrors()).sum();
+    }
+
+    @Override
+    public Map<String, OperationStats> snapshotAndReset() {
+        Map<String, OperationStats> result = snapshot(true);
+        result.put(CONNECTION_ACQUISITION, connectionAcquisition.snapshot(true));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+        connectionAcquisition.reset();
+        statements.values().forEach(StatementStats::reset);
+    }
+
+    private Map<String, OperationStats> snapshot(boolean reset) {
+        Map<String, OperationStats> result = new TreeMap<>();
+        operations.forEach((name, metrics) -> result.put(name, metrics.snapshot(reset)));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DataLayerMetrics {\n");
+        snapshot(false).values().forEach(stats -> sb.append('\t').append(stats).append('\n'));
+        sb.append('\t').append(getConnectionAcquisition()).append('\n');
+        getStatements().values().forEach(stats -> sb.append('\t').append(stats).append('\n'));
+        sb.append('}');
+        return sb.toString();
+    }
+}
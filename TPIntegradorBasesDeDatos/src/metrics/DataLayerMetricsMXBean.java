@@ -0,0 +1,36 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de {@link DataLayerMetrics}; se publica como "integradorprog2:type=DataLayerMetrics"
+ * y se puede ver con jconsole o VisualVM.
+ */
+public interface DataLayerMetricsMXBean {
+
+    /**
+     * Estadísticas por operación, con clave como "Persona.read".
+     */
+    Map<String, OperationStats> getOperations();
+
+    /**
+     * Tiempo de DatabaseConnection.getConnection(), incluida la espera en el pool.
+     */
+    OperationStats getConnectionAcquisition();
+
+    /**
+     * Estadísticas por forma de SQL. Solo tiene datos con DB_JDBC_INSTRUMENTATION=true.
+     */
+    Map<String, StatementSnapshot> getStatements();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    /**
+     * Devuelve las estadísticas acumuladas y las deja en cero, para medir por intervalos.
+     */
+    Map<String, OperationStats> snapshotAndReset();
+
+    void reset();
+}
@@ -0,0 +1,345 @@
+package metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Envuelve conexiones físicas para medir cada sentencia SQL. Los Statement, PreparedStatement
+ * y ResultSet que salen de la conexión son proxies que registran, por forma de SQL
+ * (ver {@link DataLayerMetrics#getStatements()}), el tiempo de ejecución, el tiempo que se
+ * pasa leyendo el ResultSet, las filas y los parámetros enlazados.
+ *
+ * Si una sentencia tarda más que el umbral, se escribe en el logger "metrics.JdbcInstrumentation.slow".
+ *
+ * DatabaseConnection lo activa con DB_JDBC_INSTRUMENTATION=true (umbral en DB_SLOW_QUERY_MS).
+ * Desactivado no se crea ningún proxy, así que no agrega costo.
+ */
+public final class JdbcInstrumentation {
+
+    private static final Logger SLOW_LOG = Logger.getLogger(JdbcInstrumentation.class.getName() + ".slow");
+
+    private final DataLayerMetrics metrics;
+    private final long slowThresholdNanos;
+
+    /**
+     * @param slowQueryMillis umbral del log de consultas lentas; 0 o menos lo desactiva.
+     */
+    public JdbcInstrumentation(DataLayerMetrics metrics, long slowQueryMillis) {
+        this.metrics = metrics;
+        this.slowThresholdNanos = slowQueryMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryMillis) : Long.MAX_VALUE;
+    }
+
+    public Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(physical));
+    }
+
+    private void finish(String sql, long executeNanos, long fetchNanos, long rows, int parameters, boolean failed) {
+        String shape = SqlNormalizer.normalize(sql);
+        long totalNanos = executeNanos + Math.max(0, fetchNanos);
+        boolean slow = totalNanos >= slowThresholdNanos;
+        metrics.statement(shape).record(executeNanos, fetchNanos, rows, parameters, failed, slow);
+        if (slow && SLOW_LOG.isLoggable(Level.WARNING)) {
+            SLOW_LOG.log(Level.WARNING, String.format("Consulta lenta: %d ms (ejecución %d ms, lectura %d ms), %d fila(s), %d parámetro(s)%s: %s",
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos), TimeUnit.NANOSECONDS.toMillis(executeNanos),
+                    TimeUnit.NANOSECONDS.toMillis(Math.max(0, fetchNanos)), rows, parameters,
+                    failed ? ", falló" : "", shape));
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+
+        ConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return wrapStatement((Statement) invokeTarget(physical, method, args), PreparedStatement.class, (String) args[0], (Connection) proxy);
+                case "createStatement":
+                    return wrapStatement((Statement) invokeTarget(physical, method, args), Statement.class, null, (Connection) proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedConnection[" + physical + "]";
+                default:
+                    return invokeTarget(physical, method, args);
+            }
+        }
+
+        private Statement wrapStatement(Statement target, Class<? extends Statement> type, String sql, Connection owner) {
+            return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(target, sql, owner));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final Connection owner;
+        // Mayor índice de parámetro enlazado desde la última ejecución.
+        private int parameters;
+        private ResultSet current;
+
+        StatementHandler(Statement target, String sql, Connection owner) {
+            this.target = target;
+            this.sql = sql;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            // Los setXxx(índice, valor) son parámetros; los setters del statement (setFetchSize, ...) reciben un solo argumento.
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters = Math.max(parameters, (Integer) args[0]);
+                return invokeTarget(target, method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    parameters = 0;
+                    return invokeTarget(target, method, args);
+                case "executeQuery":
+                    return executeQuery(proxy, method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    return executeUpdate(method, args);
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeBatch(method, args);
+                case "execute":
+                    return execute(proxy, method, args);
+                case "getResultSet":
+                    return currentResultSet(proxy);
+                case "getConnection":
+                    return owner;
+                case "close":
+                    closeCurrent();
+                    return invokeTarget(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedStatement[" + target + "]";
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private String sqlOf(Object[] args) {
+            return sql != null ? sql : (args != null && args.length > 0 ? (String) args[0] : null);
+        }
+
+        private int takeParameters() {
+            int count = parameters;
+            parameters = 0;
+            return count;
+        }
+
+        private Object executeQuery(Object proxy, Method method, Object[] args) throws Throwable {
+            String statementSql = sqlOf(args);
+            int params = takeParameters();
+            closeCurrent();
+            long start = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) invokeTarget(target, method, args);
+            } catch (Throwable t) {
+                finish(statementSql, System.nanoTime() - start, -1, 0, params, true);
+                throw t;
+            }
+            current = wrapResultSet(rs, (Statement) proxy, statementSql, System.nanoTime() - start, params);
+            return current;
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            String statementSql = sqlOf(args);
+            int params = takeParameters();
+            long start = System.nanoTime();
+            boolean failed = true;
+            long rows = 0;
+            try {
+                Object result = invokeTarget(target, method, args);
+                rows = ((Number) result).longValue();
+                failed = false;
+                return result;
+            } finally {
+                finish(statementSql, System.nanoTime() - start, -1, rows, params, failed);
+            }
+        }
+
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            int params = takeParameters();
+            long start = System.nanoTime();
+            boolean failed = true;
+            long rows = 0;
+            try {
+                Object result = invokeTarget(target, method, args);
+                rows = batchRows(result);
+                failed = false;
+                return result;
+            } finally {
+                finish(sql, System.nanoTime() - start, -1, rows, params, failed);
+            }
+        }
+
+        private long batchRows(Object result) {
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String statementSql = sqlOf(args);
+            int params = takeParameters();
+            closeCurrent();
+            long start = System.nanoTime();
+            boolean hasResultSet;
+            try {
+                hasResultSet = (Boolean) invokeTarget(target, method, args);
+            } catch (Throwable t) {
+                finish(statementSql, System.nanoTime() - start, -1, 0, params, true);
+                throw t;
+            }
+            long executeNanos = System.nanoTime() - start;
+            if (hasResultSet) {
+                current = wrapResultSet(target.getResultSet(), (Statement) proxy, statementSql, executeNanos, params);
+            } else {
+                finish(statementSql, executeNanos, -1, target.getUpdateCount(), params, false);
+            }
+            return hasResultSet;
+        }
+
+        private ResultSet currentResultSet(Object proxy) throws SQLException {
+            ResultSet physical = target.getResultSet();
+            if (physical == null) {
+                return null;
+            }
+            if (current == null || ((ResultSetHandler) Proxy.getInvocationHandler(current)).target != physical) {
+                // ResultSet que no salió de executeQuery/execute (por ejemplo, getMoreResults): se mide solo la lectura.
+                current = wrapResultSet(physical, (Statement) proxy, sql, 0, 0);
+            }
+            return current;
+        }
+
+        private void closeCurrent() throws SQLException {
+            if (current != null) {
+                ResultSet rs = current;
+                current = null;
+                rs.close();
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs, Statement owner, String statementSql, long executeNanos, int params) {
+            if (rs == null) {
+                finish(statementSql, executeNanos, 0, 0, params, false);
+                return null;
+            }
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(rs, owner, statementSql, executeNanos, params));
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Statement owner;
+        private final String sql;
+        private final long executeNanos;
+        private final int parameters;
+        private long fetchNanos;
+        private long rows;
+        private boolean failed;
+        private boolean finished;
+
+        ResultSetHandler(ResultSet target, Statement owner, String sql, long executeNanos, int parameters) {
+            this.target = target;
+            this.owner = owner;
+            this.sql = sql;
+            this.executeNanos = executeNanos;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    return next(method, args);
+                case "close":
+                    try {
+                        return invokeTarget(target, method, args);
+                    } finally {
+                        finishOnce();
+                    }
+                case "getStatement":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedResultSet[" + target + "]";
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private Object next(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            boolean hasRow;
+            try {
+                hasRow = (Boolean) invokeTarget(target, method, args);
+            } catch (Throwable t) {
+                fetchNanos += System.nanoTime() - start;
+                failed = true;
+                finishOnce();
+                throw t;
+            }
+            fetchNanos += System.nanoTime() - start;
+            if (hasRow) {
+                rows++;
+            } else {
+                finishOnce();
+            }
+            return hasRow;
+        }
+
+        private void finishOnce() {
+            if (!finished) {
+                finished = true;
+                finish(sql, executeNanos, fetchNanos, rows, parameters, failed);
+            }
+        }
+    }
+}
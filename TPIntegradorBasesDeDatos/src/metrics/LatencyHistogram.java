@@ -0,0 +1,137 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en microsegundos con cubetas log-lineales: los valores menores a
+ * 16 µs se cuentan exactos y de ahí en adelante cada potencia de 2 se divide en 16 cubetas,
+ * así el error de un percentil nunca pasa de 1/16 (6,25 %) del valor.
+ *
+ * Cada cubeta es un LongAdder, por lo que muchos hilos pueden registrar a la vez sin
+ * competir por la misma variable. Los percentiles se calculan al leer, no al registrar.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Hasta 2^40 µs (unos 12 días); lo que pase de ahí cae en la última cubeta.
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[bucketOf(value)].increment();
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    // Mayor valor que cae en la cubeta; los percentiles se informan por arriba.
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Copia el estado actual; con reset = true además deja el histograma en cero.
+     * Lo que se registra mientras se copia puede quedar en esta copia o en la siguiente.
+     */
+    public Snapshot snapshot(boolean reset) {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = reset ? counts[i].sumThenReset() : counts[i].sum();
+            count += copy[i];
+        }
+        long totalSum = reset ? sum.sumThenReset() : sum.sum();
+        long maxValue = reset ? max.getThenReset() : max.get();
+        if (reset) {
+            total.reset();
+        }
+        return new Snapshot(copy, count, totalSum, maxValue);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public void reset() {
+        snapshot(true);
+    }
+
+    /**
+     * Estado fijo de un histograma, para calcular varios percentiles sobre los mismos datos.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param quantile entre 0 y 1, por ejemplo 0.99 para el p99.
+         */
+        public long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de una operación (por ejemplo "Persona.update"): llamadas, errores, filas
+ * afectadas y latencia. Se obtiene con {@link DataLayerMetrics#operation(String)} y se usa así:
+ * <pre>
+ * long start = System.nanoTime();
+ * ... operación ...
+ * metrics.record(start, filas, fallo);
+ * </pre>
+ */
+public class OperationMetrics {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param startNanos valor de System.nanoTime() tomado al empezar la operación.
+     */
+    public void record(long startNanos, long rowsAffected, boolean failed) {
+        recordNanos(System.nanoTime() - startNanos, rowsAffected, failed);
+    }
+
+    public void recordNanos(long elapsedNanos, long rowsAffected, boolean failed) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rowsAffected > 0) {
+            rows.add(rowsAffected);
+        }
+        latency.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OperationStats snapshot(boolean reset) {
+        long callCount = reset ? calls.sumThenReset() : calls.sum();
+        long errorCount = reset ? errors.sumThenReset() : errors.sum();
+        long rowCount = reset ? rows.sumThenReset() : rows.sum();
+        return new OperationStats(name, callCount, errorCount, rowCount, latency.snapshot(reset));
+    }
+
+    public void reset() {
+        snapshot(true);
+    }
+}
@@ -0,0 +1,73 @@
+package metrics;
+
+/**
+ * Foto inmutable de {@link OperationMetrics}. Las latencias están en microsegundos.
+ * Por JMX se ve como un CompositeData con un atributo por getter.
+ */
+public class OperationStats {
+
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long rowsAffected;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    OperationStats(String name, long calls, long errors, long rowsAffected, LatencyHistogram.Snapshot latency) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rowsAffected = rowsAffected;
+        this.meanMicros = latency.getMean();
+        this.p50Micros = latency.percentile(0.50);
+        this.p99Micros = latency.percentile(0.99);
+        this.p999Micros = latency.percentile(0.999);
+        this.maxMicros = latency.getMax();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{calls=" + calls + ", errors=" + errors + ", rows=" + rowsAffected
+                + ", mean=" + String.format("%.1f", meanMicros) + "us, p50=" + p50Micros + "us, p99=" + p99Micros
+                + "us, p999=" + p999Micros + "us, max=" + maxMicros + "us}";
+    }
+}
@@ -0,0 +1,44 @@
+package metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Lleva un SQL a su "forma": espacios colapsados, literales reemplazados por ? y listas
+ * IN de cualquier largo reducidas a una sola. Así findAllByIds con 8 o con 128 IDs, o un
+ * SQL armado con valores concatenados, se cuentan como la misma sentencia.
+ */
+final class SqlNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\s*\\(\\?(?:, \\?)*\\)(?:\\s*,\\s*\\(\\?(?:, \\?)*\\))+\\s*\\)");
+
+    // Los DAO usan pocos SQL distintos; el tope evita crecer sin límite con SQL armado a mano.
+    private static final int MAX_CACHED = 1024;
+    private static final ConcurrentHashMap<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlNormalizer() {
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = ROW_LIST.matcher(shape).replaceAll("((?, ...), ...)");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?, ...)");
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(sql, shape);
+        }
+        return shape;
+    }
+}
@@ -0,0 +1,97 @@
+package metrics;
+
+/**
+ * Foto inmutable de {@link StatementStats}. Las latencias están en microsegundos; las de
+ * lectura solo cuentan las consultas que devolvieron un ResultSet.
+ */
+public class StatementSnapshot {
+
+    private final String sql;
+    private final long executions;
+    private final long errors;
+    private final long rows;
+    private final double averageParameters;
+    private final long slowExecutions;
+    private final long executeP50Micros;
+    private final long executeP99Micros;
+    private final long executeMaxMicros;
+    private final long fetchP50Micros;
+    private final long fetchP99Micros;
+    private final long fetchMaxMicros;
+
+    StatementSnapshot(String sql, long executions, long errors, long rows, long parameters, long slowExecutions,
+                      LatencyHistogram.Snapshot execute, LatencyHistogram.Snapshot fetch) {
+        this.sql = sql;
+        this.executions = executions;
+        this.errors = errors;
+        this.rows = rows;
+        this.averageParameters = executions == 0 ? 0 : (double) parameters / executions;
+        this.slowExecutions = slowExecutions;
+        this.executeP50Micros = execute.percentile(0.50);
+        this.executeP99Micros = execute.percentile(0.99);
+        this.executeMaxMicros = execute.getMax();
+        this.fetchP50Micros = fetch.percentile(0.50);
+        this.fetchP99Micros = fetch.percentile(0.99);
+        this.fetchMaxMicros = fetch.getMax();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getAverageRows() {
+        return executions == 0 ? 0 : (double) rows / executions;
+    }
+
+    public double getAverageParameters() {
+        return averageParameters;
+    }
+
+    public long getSlowExecutions() {
+        return slowExecutions;
+    }
+
+    public long getExecuteP50Micros() {
+        return executeP50Micros;
+    }
+
+    public long getExecuteP99Micros() {
+        return executeP99Micros;
+    }
+
+    public long getExecuteMaxMicros() {
+        return executeMaxMicros;
+    }
+
+    public long getFetchP50Micros() {
+        return fetchP50Micros;
+    }
+
+    public long getFetchP99Micros() {
+        return fetchP99Micros;
+    }
+
+    public long getFetchMaxMicros() {
+        return fetchMaxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " {executions=" + executions + ", errors=" + errors + ", rows=" + rows
+                + ", params=" + String.format("%.1f", averageParameters) + ", slow=" + slowExecutions
+                + ", execute p50/p99/max=" + executeP50Micros + "/" + executeP99Micros + "/" + executeMaxMicros + "us"
+                + ", fetch p50/p99/max=" + fetchP50Micros + "/" + fetchP99Micros + "/" + fetchMaxMicros + "us}";
+    }
+}
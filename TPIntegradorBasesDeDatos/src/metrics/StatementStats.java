@@ -0,0 +1,59 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula las ejecuciones de una forma de SQL: cuántas veces corrió, cuántas fallaron,
+ * filas leídas o escritas, parámetros enlazados, y por separado el tiempo de ejecución
+ * (hasta que el driver devuelve el ResultSet o el conteo) y el de lectura del ResultSet.
+ */
+public class StatementStats {
+
+    private final String sql;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder parameters = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LatencyHistogram executeLatency = new LatencyHistogram();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+
+    StatementStats(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long executeNanos, long fetchNanos, long rowCount, int parameterCount, boolean failed, boolean wasSlow) {
+        executions.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (wasSlow) {
+            slow.increment();
+        }
+        rows.add(Math.max(0, rowCount));
+        parameters.add(parameterCount);
+        executeLatency.record(TimeUnit.NANOSECONDS.toMicros(executeNanos));
+        if (fetchNanos >= 0) {
+            fetchLatency.record(TimeUnit.NANOSECONDS.toMicros(fetchNanos));
+        }
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public StatementSnapshot snapshot(boolean reset) {
+        long executionCount = reset ? executions.sumThenReset() : executions.sum();
+        long errorCount = reset ? errors.sumThenReset() : errors.sum();
+        long rowCount = reset ? rows.sumThenReset() : rows.sum();
+        long parameterCount = reset ? parameters.sumThenReset() : parameters.sum();
+        long slowCount = reset ? slow.sumThenReset() : slow.sum();
+        return new StatementSnapshot(sql, executionCount, errorCount, rowCount, parameterCount, slowCount,
+                executeLatency.snapshot(reset), fetchLatency.snapshot(reset));
+    }
+
+    public void reset() {
+        snapshot(true);
+    }
+}
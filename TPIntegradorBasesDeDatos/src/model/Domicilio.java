@@ -1,14 +1,30 @@
 
 package model;
 
+import java.util.Objects;
+import mapping.Column;
+import mapping.Id;
+import mapping.Table;
+
 /**
  *
  * @author lucaGomezB
  */
+@Table(name = "domicilio")
 public class Domicilio {
+    // Bits de getDirtyFields(): qué columnas cambiaron desde la última lectura o escritura.
+    // Siguen el orden de declaración de las columnas, igual que los de dao.DomicilioMapping.
+    public static final int LOCALIDAD = 1;
+    public static final int PROVINCIA = 2;
+    public static final int ALL_FIELDS = LOCALIDAD | PROVINCIA;
+
+    @Id
     private int id;
+    @Column
     private String localidad;
+    @Column
     private String provincia;
+    private int dirtyFields = ALL_FIELDS;
 
     public Domicilio(int id, String localidad, String provincia) {
         this.id = id;
@@ -16,6 +32,11 @@ public class Domicilio {
         this.provincia = provincia;
     }
 
+    public Domicilio(Domicilio other) {
+        this(other.id, other.localidad, other.provincia);
+        this.dirtyFields = other.dirtyFields;
+    }
+
     public int getId() {
         return id;
     }
@@ -29,6 +50,9 @@ public class Domicilio {
     }
 
     public void setLocalidad(String localidad) {
+        if (!Objects.equals(this.localidad, localidad)) {
+            dirtyFields |= LOCALIDAD;
+        }
         this.localidad = localidad;
     }
 
@@ -37,9 +61,27 @@ public class Domicilio {
     }
 
     public void setProvincia(String provincia) {
+        if (!Objects.equals(this.provincia, provincia)) {
+            dirtyFields |= PROVINCIA;
+        }
         this.provincia = provincia;
     }
 
+    /**
+     * Columnas modificadas desde que el domicilio se leyó o se guardó (LOCALIDAD y/o PROVINCIA).
+     */
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    public void markClean() {
+        dirtyFields = 0;
+    }
+
     @Override
     public String toString() {
         return "Domicilio {\n\tid = " + id + "\n\tlocalidad = " + localidad + "\n\tprovincia = " + provincia + "\n}\n";
@@ -1,15 +1,34 @@
 
 package model;
 
+import java.util.Objects;
+import mapping.Column;
+import mapping.Id;
+import mapping.Relation;
+import mapping.Table;
+
 /**
  *
  * @author lucaGomezB
  */
+@Table(name = "persona")
 public class Persona {
+    // Bits de getDirtyFields(): qué columnas cambiaron desde la última lectura o escritura.
+    // Siguen el orden de declaración de las columnas, igual que los de dao.PersonaMapping.
+    public static final int NOMBRE = 1;
+    public static final int EDAD = 2;
+    public static final int DOMICILIO = 4;
+    public static final int ALL_FIELDS = NOMBRE | EDAD | DOMICILIO;
+
+    @Id
     private int id;
+    @Column
     private String nombre;
+    @Column
     private int edad;
+    @Relation(column = "id_domicilio")
     private Domicilio domicilio;
+    private int dirtyFields = ALL_FIELDS;
 
     public Persona(int id, String nombre, int edad, Domicilio domicilio) {
         this.id = id;
@@ -18,6 +37,12 @@ public class Persona {
         this.domicilio = domicilio;
     }
 
+    // Copia también el domicilio, así la copia se puede modificar sin afectar al original.
+    public Persona(Persona other) {
+        this(other.id, other.nombre, other.edad, other.domicilio == null ? null : new Domicilio(other.domicilio));
+        this.dirtyFields = other.dirtyFields;
+    }
+
     public int getId() {
         return id;
     }
@@ -31,6 +56,9 @@ public class Persona {
     }
 
     public void setNombre(String nombre) {
+        if (!Objects.equals(this.nombre, nombre)) {
+            dirtyFields |= NOMBRE;
+        }
         this.nombre = nombre;
     }
 
@@ -39,6 +67,9 @@ public class Persona {
     }
 
     public void setEdad(int edad) {
+        if (this.edad != edad) {
+            dirtyFields |= EDAD;
+        }
         this.edad = edad;
     }
 
@@ -47,9 +78,44 @@ public class Persona {
     }
 
     public void setDomicilio(Domicilio domicilio) {
+        if (this.domicilio != domicilio) {
+            dirtyFields |= DOMICILIO;
+        }
         this.domicilio = domicilio;
     }
 
+    /**
+     * Columnas modificadas desde que la persona se leyó o se guardó (combinación de
+     * NOMBRE, EDAD y DOMICILIO). Una persona creada con el constructor tiene todas marcadas.
+     */
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    /**
+     * Indica si la persona o su domicilio tienen cambios sin guardar.
+     */
+    public boolean isDirty() {
+        return dirtyFields != 0 || (domicilio != null && domicilio.isDirty());
+    }
+
+    /**
+     * La marcan los DAO después de leer o guardar la persona; también limpia el domicilio.
+     */
+    public void markClean() {
+        dirtyFields = 0;
+        if (domicilio != null) {
+            domicilio.markClean();
+        }
+    }
+
+    /**
+     * Desmarca solo las columnas indicadas (combinación de NOMBRE, EDAD y DOMICILIO); no toca el domicilio.
+     */
+    public void markClean(int fields) {
+        dirtyFields &= ~fields;
+    }
+
     @Override
     public String toString() {
         return "Persona {\n\tid = " + id + "\n\tnombre = " + nombre + "\n\tedad = " + edad + "\n\tdomicilio = " + domicilio + "\n}\n";
@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * ID y edad de una persona (ver PersonaDAO.EDAD).
+ */
+public record PersonaEdad(int id, int edad) {
+}
@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * ID y nombre de una persona, para listados que no necesitan el resto (ver PersonaDAO.NOMBRE).
+ */
+public record PersonaNombre(int id, String nombre) {
+}
@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * Datos de una persona con su domicilio en una sola fila plana, sin armar Persona ni
+ * Domicilio (ver PersonaDAO.RESUMEN).
+ */
+public record PersonaResumen(int id, String nombre, int edad, String localidad, String provincia) {
+}
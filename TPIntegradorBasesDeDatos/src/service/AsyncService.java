@@ -0,0 +1,215 @@
+package service;
+
+import config.ConnectionPool;
+import config.DatabaseConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fachada asíncrona sobre un servicio (PersonaService, DomicilioService, ...). Cada
+ * operación corre en otro hilo y devuelve un CompletableFuture.
+ *
+ * La cantidad de operaciones que usan la base al mismo tiempo se limita con un semáforo
+ * del tamaño del pool de conexiones, así miles de llamadores esperan en una cola barata
+ * en lugar de agotar las conexiones de MySQL. Si la JVM tiene hilos virtuales (Java 21+)
+ * se usa uno por tarea; en Java 17 se usa un pool fijo de hilos del mismo tamaño que el límite.
+ *
+ * Cancelar el future (o que venza un orTimeout) interrumpe la tarea si todavía está corriendo.
+ *
+ * @param <T> El tipo de la entidad.
+ * @param <ID> El tipo del ID de la entidad.
+ */
+public class AsyncService<T, ID> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncService.class.getName());
+    private static final int FAN_OUT_CHUNK = 128;
+
+    private final GenericService<T, ID> service;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+
+    public AsyncService(GenericService<T, ID> service) {
+        this(service, defaultConcurrency());
+    }
+
+    public AsyncService(GenericService<T, ID> service, int maxConcurrency) {
+        if (service == null) {
+            throw new IllegalArgumentException("El servicio no puede ser nulo.");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("La concurrencia máxima debe ser mayor a cero.");
+        }
+        this.service = service;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = newExecutor(maxConcurrency);
+    }
+
+    private static int defaultConcurrency() {
+        ConnectionPool pool = DatabaseConnection.getPool();
+        return pool != null ? pool.getMaxSize() : DatabaseConnection.getIntSetting("DB_ASYNC_MAX_CONCURRENCY", 10);
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() existe desde Java 21; el proyecto compila con 17.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, r -> {
+                Thread t = new Thread(r, "async-service-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Ejecuta cualquier operación del servicio de forma asíncrona, respetando el límite de concurrencia.
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> operation) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                if (!result.isDone()) {
+                    result.complete(operation.get());
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                permits.release();
+            }
+        });
+        // Si el future termina por cancelación o timeout, la tarea deja de esperar o se interrumpe.
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<T> createAsync(T entity) {
+        return submit(() -> service.create(entity));
+    }
+
+    public CompletableFuture<Optional<T>> readAsync(ID id) {
+        return submit(() -> service.read(id));
+    }
+
+    public CompletableFuture<T> updateAsync(T entity) {
+        return submit(() -> service.update(entity));
+    }
+
+    public CompletableFuture<Void> deleteAsync(ID id) {
+        return submit(() -> {
+            service.delete(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<T>> findAllAsync() {
+        return submit(service::findAll);
+    }
+
+    /**
+     * Busca muchos IDs repartiéndolos en bloques que se consultan en paralelo con
+     * findAllByIds. Si un bloque falla o se vence el timeout, se cancelan los demás.
+     *
+     * @param timeout tiempo máximo para el conjunto; null para no limitarlo.
+     */
+    public CompletableFuture<Map<ID, T>> findAllByIdsAsync(Collection<ID> ids, Duration timeout) {
+        List<ID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<CompletableFuture<Map<ID, T>>> parts = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += FAN_OUT_CHUNK) {
+            List<ID> chunk = distinct.subList(from, Math.min(from + FAN_OUT_CHUNK, distinct.size()));
+            parts.add(submit(() -> service.findAllByIds(chunk)));
+        }
+
+        CompletableFuture<Map<ID, T>> all = CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<ID, T> found = new LinkedHashMap<>();
+                    parts.forEach(part -> found.putAll(part.join()));
+                    Map<ID, T> ordered = new LinkedHashMap<>();
+                    for (ID id : distinct) {
+                        T entity = found.get(id);
+                        if (entity != null) {
+                            ordered.put(id, entity);
+                        }
+                    }
+                    return ordered;
+                });
+        if (timeout != null) {
+            all = all.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        all.whenComplete((value, error) -> {
+            if (error != null) {
+                parts.forEach(part -> part.cancel(true));
+            }
+        });
+        // Un bloque fallido termina todo de inmediato, sin esperar a los demás.
+        for (CompletableFuture<Map<ID, T>> part : parts) {
+            CompletableFuture<Map<ID, T>> target = all;
+            part.whenComplete((value, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(error);
+                }
+            });
+        }
+        return all;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Operaciones esperando turno para usar la base.
+     */
+    public int getQueuedOperations() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Deja de aceptar operaciones y espera hasta 30 segundos a que terminen las pendientes.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.WARNING, "Quedaron operaciones asíncronas sin terminar al cerrar el servicio.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package service;
 
-import config.DatabaseConnection; 
 import dao.BaseDAO;
+import dao.Page;
+import dao.Projection;
+import metrics.DataLayerMetrics;
+import metrics.OperationMetrics;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.sql.SQLException;
-import java.sql.Connection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,8 +28,29 @@ public abstract class BaseService<T, ID> implements GenericService<T, ID> {
 
     protected BaseDAO<T, ID> dao;
 
+    // Métricas por entidad ("Persona.create", ...); se ven por JMX en DataLayerMetrics.
+    protected final OperationMetrics createMetrics;
+    protected final OperationMetrics readMetrics;
+    protected final OperationMetrics updateMetrics;
+    protected final OperationMetrics deleteMetrics;
+    protected final OperationMetrics findAllMetrics;
+
     public BaseService(BaseDAO<T, ID> dao) {
         this.dao = dao;
+        String entity = dao.getEntityClass().getSimpleName();
+        DataLayerMetrics metrics = DataLayerMetrics.getInstance();
+        this.createMetrics = metrics.operation(entity + ".create");
+        this.readMetrics = metrics.operation(entity + ".read");
+        this.updateMetrics = metrics.operation(entity + ".update");
+        this.deleteMetrics = metrics.operation(entity + ".delete");
+        this.findAllMetrics = metrics.operation(entity + ".findAll");
+    }
+
+    /**
+     * Nombre con el que TransactionManager cuenta los reintentos de esta operación, por ejemplo "PersonaService.update".
+     */
+    protected String operation(String method) {
+        return getClass().getSimpleName() + "." + method;
     }
 
     @Override
@@ -31,41 +58,17 @@ public abstract class BaseService<T, ID> implements GenericService<T, ID> {
         if (entity == null) {
             throw new IllegalArgumentException("La entidad a crear no puede ser nula.");
         }
-        Connection conn = null;
+        long start = System.nanoTime();
+        boolean failed = true;
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            T createdEntity = dao.insert(conn, entity);
-            conn.commit();
-            return createdEntity;
+            T created = TransactionManager.required(operation("create"), conn -> dao.insert(conn, entity));
+            failed = false;
+            return created;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error de SQL al crear la entidad: " + e.getMessage(), e);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rbEx) {
-                    LOGGER.log(Level.SEVERE, "Falló el rollback al crear la entidad.", rbEx);
-                }
-            }
             throw new RuntimeException("Error en la operación de base de datos al crear la entidad.", e);
-        } catch (IllegalArgumentException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rbEx) {
-                    LOGGER.log(Level.SEVERE, "Falló el rollback por error de argumento al crear la entidad.", rbEx);
-                }
-            }
-            throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    LOGGER.log(Level.SEVERE, "Error al cerrar la conexión después de crear la entidad.", closeEx);
-                }
-            }
+            createMetrics.record(start, failed ? 0 : 1, failed);
         }
     }
 
@@ -74,11 +77,16 @@ public abstract class BaseService<T, ID> implements GenericService<T, ID> {
         if (id == null) {
             throw new IllegalArgumentException("El ID para leer no puede ser nulo.");
         }
+        long start = System.nanoTime();
+        Optional<T> found = null;
         try {
-            return dao.read(id); 
+            found = dao.read(id);
+            return found;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error de SQL al leer la entidad con ID: " + id + ". " + e.getMessage(), e);
             throw new RuntimeException("Error en la base de datos al leer entidad con ID: " + id, e);
+        } finally {
+            readMetrics.record(start, found != null && found.isPresent() ? 1 : 0, found == null);
         }
     }
 
@@ -87,89 +95,219 @@ public abstract class BaseService<T, ID> implements GenericService<T, ID> {
         if (entity == null) {
             throw new IllegalArgumentException("La entidad a actualizar no puede ser nula.");
         }
-        Connection conn = null;
+        if (!dao.hasChanges(entity)) {
+            return entity; // Sin cambios: no se abre conexión ni transacción.
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            T updatedEntity = dao.update(conn, entity);
-            conn.commit();
-            return updatedEntity;
+            T updated = TransactionManager.required(operation("update"), conn -> dao.update(conn, entity));
+            failed = false;
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error de SQL al actualizar la entidad: " + e.getMessage(), e);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rbEx) {
-                    LOGGER.log(Level.SEVERE, "Falló el rollback al actualizar la entidad.", rbEx);
-                }
-            }
             throw new RuntimeException("Error en la operación de base de datos al actualizar la entidad.", e);
-        } catch (IllegalArgumentException e) { // Catch validation errors
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rbEx) {
-                    LOGGER.log(Level.SEVERE, "Falló el rollback por error de argumento al actualizar la entidad.", rbEx);
-                }
-            }
-            throw e; // Re-throw validation error
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    LOGGER.log(Level.SEVERE, "Error al cerrar la conexión después de actualizar la entidad.", closeEx);
-                }
-            }
+            updateMetrics.record(start, failed ? 0 : 1, failed);
         }
     }
 
     @Override
     public void delete(ID id) {
-        Connection conn = null;
+        Integer intId;
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
             // Assuming ID is Integer, as per previous discussions for Persona/Domicilio
-            dao.delete(conn, (Integer) id); // dao.delete(Connection conn, Integer id)
-            conn.commit();
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error de SQL al borrar la entidad con ID: " + id + ". " + e.getMessage(), e);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    LOGGER.log(Level.SEVERE, "Falló el rollback al borrar con el ID: " + id, rollbackEx);
-                }
-            }
-            throw new RuntimeException("Error en la operación de base de datos al eliminar la entidad con ID: " + id, e);
+            intId = (Integer) id;
         } catch (ClassCastException e) { // Catch if ID is not Integer, for the cast (Integer) id
             LOGGER.log(Level.SEVERE, "Error de tipo al borrar la entidad con ID: " + id + ". Se esperaba Integer.", e);
             throw new IllegalArgumentException("Tipo de ID no soportado para la eliminación. Se esperaba Integer.", e);
+        }
+        long start = System.nanoTime();
+        Integer deleted = null;
+        try {
+            deleted = TransactionManager.required(operation("delete"), conn -> dao.delete(conn, intId));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al borrar la entidad con ID: " + id + ". " + e.getMessage(), e);
+            throw new RuntimeException("Error en la operación de base de datos al eliminar la entidad con ID: " + id, e);
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    LOGGER.log(Level.SEVERE, "Error al cerrar la conexión después de eliminar la entidad con ID: " + id, closeEx);
-                }
-            }
+            deleteMetrics.record(start, deleted == null ? 0 : deleted, deleted == null);
         }
     }
 
     @Override
     public List<T> findAll() {
+        long start = System.nanoTime();
+        List<T> all = null;
         try {
-            return dao.findAll(); // dao.findAll() throws SQLException
+            all = dao.findAll(); // dao.findAll() throws SQLException
+            return all;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error de SQL al listar todas las entidades: " + e.getMessage(), e);
             throw new RuntimeException("Error en la base de datos al listar todas las entidades.", e);
+        } finally {
+            findAllMetrics.record(start, all == null ? 0 : all.size(), all == null);
         }
     }
     
+    /**
+     * Devuelve las entidades a medida que se leen del cursor, sin armar la lista completa.
+     * El llamador debe cerrar el Stream (try-with-resources) para devolver la conexión.
+     */
+    @Override
+    public Stream<T> streamAll() {
+        try {
+            return dao.streamAll();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al recorrer todas las entidades: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al recorrer todas las entidades.", e);
+        }
+    }
+
+    /**
+     * Devuelve una página en orden ascendente de ID. continuationToken es el de la página
+     * anterior (null para la primera) y conserva el sentido en que se empezó el recorrido.
+     */
+    @Override
+    public Page<T> findPage(String continuationToken, int limit) {
+        try {
+            return continuationToken == null ? dao.findPage((Integer) null, limit) : dao.continuePage(continuationToken, limit);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al paginar las entidades: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al paginar las entidades.", e);
+        }
+    }
+
+    @Override
+    public Page<T> findPageReverse(String continuationToken, int limit) {
+        try {
+            return continuationToken == null ? dao.findPageReverse((Integer) null, limit) : dao.continuePage(continuationToken, limit);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al paginar las entidades: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al paginar las entidades.", e);
+        }
+    }
+
+    // Métricas de cada proyección ("Persona.projection.nombre"); se crean la primera vez.
+    private OperationMetrics projectionMetrics(Projection<?> projection) {
+        return DataLayerMetrics.getInstance().operation(dao.getEntityClass().getSimpleName() + ".projection." + projection.getName());
+    }
+
+    /**
+     * Todas las filas de la proyección (ver {@link Projection}). No pasa por los caches de entidades.
+     */
+    public <R> List<R> findAll(Projection<R> projection) {
+        if (projection == null) {
+            throw new IllegalArgumentException("La proyección no puede ser nula.");
+        }
+        long start = System.nanoTime();
+        List<R> rows = null;
+        try {
+            rows = dao.findAll(projection);
+            return rows;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al listar la proyección " + projection.getName() + ": " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al listar " + projection.getName() + ".", e);
+        } finally {
+            projectionMetrics(projection).record(start, rows == null ? 0 : rows.size(), rows == null);
+        }
+    }
+
+    public <R> Optional<R> read(Projection<R> projection, ID id) {
+        if (projection == null || id == null) {
+            throw new IllegalArgumentException("La proyección y el ID para leer no pueden ser nulos.");
+        }
+        long start = System.nanoTime();
+        Optional<R> found = null;
+        try {
+            found = dao.read(projection, id);
+            return found;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al leer " + projection.getName() + " con ID: " + id + ". " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al leer " + projection.getName() + " con ID: " + id, e);
+        } finally {
+            projectionMetrics(projection).record(start, found != null && found.isPresent() ? 1 : 0, found == null);
+        }
+    }
+
+    /**
+     * Página de la proyección en orden ascendente de ID; continuationToken es el de la página anterior o null.
+     */
+    public <R> Page<R> findPage(Projection<R> projection, String continuationToken, int limit) {
+        if (projection == null) {
+            throw new IllegalArgumentException("La proyección no puede ser nula.");
+        }
+        long start = System.nanoTime();
+        Page<R> page = null;
+        try {
+            page = continuationToken == null ? dao.findPage(projection, null, limit) : dao.continuePage(projection, continuationToken, limit);
+            return page;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al paginar la proyección " + projection.getName() + ": " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al paginar " + projection.getName() + ".", e);
+        } finally {
+            projectionMetrics(projection).record(start, page == null ? 0 : page.getItems().size(), page == null);
+        }
+    }
+
+    @Override
+    public Map<ID, T> findAllByIds(Collection<ID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs a buscar no puede ser nula.");
+        }
+        try {
+            return dao.findAllByIds(ids);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al buscar varias entidades por ID: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la base de datos al buscar varias entidades por ID.", e);
+        }
+    }
+
+    /**
+     * Crea las entidades en lotes; cada lote se confirma en su propia transacción
+     * (ver {@link BaseDAO#getBatchSize()}). Si un lote falla, los anteriores quedan guardados.
+     * Un lote que falla por deadlock o espera de lock vencida se repite entero según la
+     * política de TransactionManager, igual que updateAll y deleteAll; dentro de una
+     * transacción activa el reintento queda a cargo de quien la abrió.
+     */
+    @Override
+    public List<T> createAll(Collection<T> entities) {
+        if (entities == null || entities.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("La colección de entidades a crear no puede ser nula ni contener nulos.");
+        }
+        try {
+            return dao.createAll(entities);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al crear entidades en lote: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la operación de base de datos al crear entidades en lote.", e);
+        }
+    }
+
+    @Override
+    public List<T> updateAll(Collection<T> entities) {
+        if (entities == null || entities.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("La colección de entidades a actualizar no puede ser nula ni contener nulos.");
+        }
+        try {
+            return dao.updateAll(entities);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al actualizar entidades en lote: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la operación de base de datos al actualizar entidades en lote.", e);
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<ID> ids) {
+        if (ids == null || ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("La colección de IDs a eliminar no puede ser nula ni contener nulos.");
+        }
+        try {
+            return dao.deleteAll(ids);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error de SQL al eliminar entidades en lote: " + e.getMessage(), e);
+            throw new RuntimeException("Error en la operación de base de datos al eliminar entidades en lote.", e);
+        }
+    }
+
     public T findById(ID id) {
         Optional<T> entityOptional = read(id); 
         if (entityOptional.isEmpty()) {
@@ -5,6 +5,7 @@ import dao.DomicilioDAO;
 import model.Domicilio;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,6 +44,37 @@ public class DomicilioService extends BaseService<Domicilio, Integer>{
         return super.update(domicilio);
     }
     
+    @Override
+    public List<Domicilio> createAll(Collection<Domicilio> domicilios) {
+        if (domicilios != null) {
+            for (Domicilio domicilio : domicilios) {
+                if (domicilio != null && (domicilio.getLocalidad() == null || domicilio.getLocalidad().trim().isEmpty() ||
+                    domicilio.getProvincia() == null || domicilio.getProvincia().trim().isEmpty())) {
+                    throw new IllegalArgumentException("La provincia y localidad no pueden estar vacías.");
+                }
+            }
+        }
+        return super.createAll(domicilios);
+    }
+
+    @Override
+    public List<Domicilio> updateAll(Collection<Domicilio> domicilios) {
+        if (domicilios != null) {
+            for (Domicilio domicilio : domicilios) {
+                if (domicilio == null) {
+                    continue;
+                }
+                if (domicilio.getLocalidad() == null || domicilio.getLocalidad().trim().isEmpty()) {
+                    throw new IllegalArgumentException("La localidad no puede estar vacía.");
+                }
+                if (domicilio.getProvincia() == null || domicilio.getProvincia().trim().isEmpty()) {
+                    throw new IllegalArgumentException("La provincia no puede estar vacía.");
+                }
+            }
+        }
+        return super.updateAll(domicilios);
+    }
+
     @Override 
     public Optional<Domicilio> read(Integer id) { 
         if (id == null || id <= 0) { 
@@ -3,8 +3,12 @@ package service;
  *
  * @author lucaGomezB
  */
+import dao.Page;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 public interface GenericService<T, ID> {
     T create(T entity);
     
@@ -15,4 +19,19 @@ public interface GenericService<T, ID> {
     void delete(ID id);
     
     List<T> findAll();
+
+    List<T> createAll(Collection<T> entities);
+
+    List<T> updateAll(Collection<T> entities);
+
+    int deleteAll(Collection<ID> ids);
+
+    Stream<T> streamAll();
+
+    // Paginación por ID: con token null empieza desde el principio (o desde el final en la versión reverse).
+    Page<T> findPage(String continuationToken, int limit);
+
+    Page<T> findPageReverse(String continuationToken, int limit);
+
+    Map<ID, T> findAllByIds(Collection<ID> ids);
 }
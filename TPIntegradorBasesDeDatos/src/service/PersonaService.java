@@ -1,13 +1,30 @@
 package service;
 
+import cache.NameFilter;
+import cache.NameIndex;
+import cache.StripedCache;
 import config.DatabaseConnection;
+import config.TransactionContext;
+import dao.CachedDomicilioDAO;
 import dao.GenericDAO;
+import dao.NameMatch;
+import dao.Page;
 import dao.PersonaDAO;
+import metrics.DataLayerMetrics;
+import metrics.OperationMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
+import model.Domicilio;
 import model.Persona;
+import model.PersonaNombre;
 import java.sql.SQLException;
-import java.sql.Connection;
 
 /**
  *
@@ -16,48 +33,419 @@ import java.sql.Connection;
 
 public class PersonaService extends BaseService<Persona,Integer> {
     private final PersonaDAO personaDao;
+    // Cache por ID; null si DB_PERSONA_CACHE_SIZE es 0. Solo se publica lo que ya se confirmó.
+    // Guarda del domicilio solo el ID: otras personas y DomicilioService lo cambian sin pasar
+    // por este servicio, así que se vuelve a pedir al DomicilioDAO en cada acierto.
+    private final StripedCache<Integer, Persona> cache;
+    // Nombres en memoria para suggestNombres; null si DB_PERSONA_NAME_INDEX no es true.
+    // Se carga con la primera sugerencia y se mantiene con lo que se confirma en este servicio.
+    private final NameIndex nameIndex;
+    // Filtro de Bloom delante de existeNombre; null si DB_PERSONA_NAME_FILTER no es true.
+    private final NameFilter nameFilter;
+    private final OperationMetrics searchMetrics;
+    private final OperationMetrics suggestMetrics;
+    private final OperationMetrics existeNombreMetrics;
+    // Consultas de existeNombre que el filtro no pudo descartar y fueron a la base.
+    private final OperationMetrics existeNombreSqlMetrics;
+
     public PersonaService(PersonaDAO dao) {
+        this(dao, createCacheFromSettings(), createNameIndexFromSettings(), createNameFilterFromSettings(dao));
+    }
+
+    public PersonaService(PersonaDAO dao, StripedCache<Integer, Persona> cache) {
+        this(dao, cache, null, null);
+    }
+
+    /**
+     * Con cache, el DomicilioDAO de dao tiene que ser un CachedDomicilioDAO: el cache guarda
+     * solo el ID del domicilio y lo resuelve en cada acierto, que sin él sería una consulta.
+     * Si nameFilter todavía no se armó, lo arma recorriendo la tabla; si falla se sigue
+     * sin él (todas las consultas van a la base) hasta que se llame a rebuildNameFilter.
+     */
+    public PersonaService(PersonaDAO dao, StripedCache<Integer, Persona> cache, NameIndex nameIndex, NameFilter nameFilter) {
         super(dao);
+        if (cache != null && !(dao.getDomicilioDao() instanceof CachedDomicilioDAO)) {
+            throw new IllegalArgumentException("El cache de personas necesita un PersonaDAO con CachedDomicilioDAO.");
+        }
         this.personaDao = dao;
+        this.cache = cache;
+        this.nameIndex = nameIndex;
+        this.nameFilter = nameFilter;
+        DataLayerMetrics metrics = DataLayerMetrics.getInstance();
+        this.searchMetrics = metrics.operation("Persona.search");
+        this.suggestMetrics = metrics.operation("Persona.suggest");
+        this.existeNombreMetrics = metrics.operation("Persona.existeNombre");
+        this.existeNombreSqlMetrics = metrics.operation("Persona.existeNombre.sql");
+        if (nameFilter != null && nameFilter.getFilter() == null) {
+            try {
+                nameFilter.rebuild();
+            } catch (SQLException e) {
+                System.err.println("Advertencia: No se pudo armar el filtro de nombres: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Si DB_PERSONA_CACHE_SIZE habilita el cache de personas; en ese caso el PersonaDAO que
+     * se le pase al constructor de settings tiene que usar un CachedDomicilioDAO.
+     */
+    public static boolean isCacheConfigured() {
+        return DatabaseConnection.getIntSetting("DB_PERSONA_CACHE_SIZE", 0) > 0;
+    }
+
+    private static StripedCache<Integer, Persona> createCacheFromSettings() {
+        if (!isCacheConfigured()) {
+            return null;
+        }
+        int size = DatabaseConnection.getIntSetting("DB_PERSONA_CACHE_SIZE", 0);
+        return new StripedCache<>(size, DatabaseConnection.getIntSetting("DB_PERSONA_CACHE_STRIPES", 16),
+                DatabaseConnection.getLongSetting("DB_PERSONA_CACHE_TTL_MS", 300_000));
+    }
+
+    private static NameIndex createNameIndexFromSettings() {
+        return DatabaseConnection.getBooleanSetting("DB_PERSONA_NAME_INDEX", false) ? new NameIndex() : null;
+    }
+
+    private static NameFilter createNameFilterFromSettings(PersonaDAO dao) {
+        if (!DatabaseConnection.getBooleanSetting("DB_PERSONA_NAME_FILTER", false)) {
+            return null;
+        }
+        return nameFilter(dao, DatabaseConnection.getDoubleSetting("DB_PERSONA_NAME_FILTER_FPP", 0.01));
+    }
+
+    /**
+     * Filtro de nombres sobre la tabla persona, todavía sin armar.
+     */
+    public static NameFilter nameFilter(PersonaDAO dao, double falsePositiveRate) {
+        return new NameFilter(new NameFilter.Source() {
+            @Override
+            public long count() throws SQLException {
+                return dao.count();
+            }
+
+            @Override
+            public Stream<String> names() throws SQLException {
+                return dao.streamAll(PersonaDAO.NOMBRE).map(PersonaNombre::nombre);
+            }
+        }, falsePositiveRate);
+    }
+
+    public StripedCache<Integer, Persona> getCache() {
+        return cache;
+    }
+
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    public NameFilter getNameFilter() {
+        return nameFilter;
+    }
+
+    /**
+     * Vuelve a armar el filtro de nombres desde la tabla, por ejemplo después de borrar
+     * muchas personas o de cargarlas por fuera de este servicio.
+     */
+    public void rebuildNameFilter() {
+        if (nameFilter == null) {
+            return;
+        }
+        try {
+            nameFilter.rebuild();
+        } catch (SQLException e) {
+            System.err.println("Error de servicio armando el filtro de nombres: " + e.getMessage());
+            throw new RuntimeException("No se pudo armar el filtro de nombres.", e);
+        }
+    }
+
+    /**
+     * Si hay alguna persona con ese nombre, con la comparación de la columna (sin distinguir
+     * mayúsculas ni acentos). Con el filtro de nombres activo, la mayoría de los nombres que
+     * no existen se descartan sin ir a la base.
+     */
+    public boolean existeNombre(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre a verificar no puede estar vacío.");
+        }
+        long start = System.nanoTime();
+        Boolean exists = null;
+        try {
+            if (nameFilter != null && !nameFilter.mightContain(nombre)) {
+                exists = false;
+                return false;
+            }
+            long sqlStart = System.nanoTime();
+            try {
+                exists = personaDao.existeNombre(nombre);
+            } finally {
+                existeNombreSqlMetrics.record(sqlStart, exists != null && exists ? 1 : 0, exists == null);
+            }
+            return exists;
+        } catch (SQLException e) {
+            System.err.println("Error de servicio verificando el nombre '" + nombre + "': " + e.getMessage());
+            throw new RuntimeException("No se pudo verificar si existe el nombre: " + nombre, e);
+        } finally {
+            existeNombreMetrics.record(start, exists != null && exists ? 1 : 0, exists == null);
+        }
+    }
+
+    /**
+     * Busca personas por nombre exacto o por prefijo, sin distinguir mayúsculas ni acentos
+     * (lo resuelve la collation de la columna, ver NameMatch). Las páginas vienen ordenadas
+     * por nombre e ID; continuationToken es el de la página anterior de la búsqueda o null.
+     */
+    public Page<Persona> searchByNombre(String nombre, NameMatch match, String continuationToken, int limit) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre a buscar no puede estar vacío.");
+        }
+        if (match == null) {
+            throw new IllegalArgumentException("El tipo de búsqueda no puede ser nulo.");
+        }
+        long start = System.nanoTime();
+        Page<Persona> page = null;
+        try {
+            page = personaDao.findByNombre(nombre.trim(), match, continuationToken, limit);
+            return page;
+        } catch (SQLException e) {
+            System.err.println("Error de servicio buscando personas por nombre '" + nombre + "': " + e.getMessage());
+            throw new RuntimeException("No se pudieron buscar personas por nombre.", e);
+        } finally {
+            searchMetrics.record(start, page == null ? 0 : page.getItems().size(), page == null);
+        }
+    }
+
+    /**
+     * Hasta limit nombres que empiezan con prefix, para autocompletar. Con el índice en
+     * memoria se responde sin ir a la base; sin él, o mientras otro hilo lo carga, se
+     * consulta idx_persona_nombre con la misma semántica.
+     */
+    public List<PersonaNombre> suggestNombres(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo a buscar no puede estar vacío.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("La cantidad de sugerencias debe ser mayor a cero.");
+        }
+        long start = System.nanoTime();
+        List<PersonaNombre> nombres = null;
+        try {
+            if (nameIndex != null && !nameIndex.isLoaded()) {
+                nameIndex.load(() -> personaDao.findAll(PersonaDAO.NOMBRE));
+            }
+            nombres = nameIndex != null && nameIndex.isLoaded()
+                    ? nameIndex.startingWith(prefix, limit)
+                    : personaDao.findNombresByPrefix(prefix.trim(), limit);
+            return nombres;
+        } catch (SQLException e) {
+            System.err.println("Error de servicio buscando nombres que empiezan con '" + prefix + "': " + e.getMessage());
+            throw new RuntimeException("No se pudieron buscar sugerencias de nombres.", e);
+        } finally {
+            suggestMetrics.record(start, nombres == null ? 0 : nombres.size(), nombres == null);
+        }
+    }
+
+    /**
+     * Lee la persona del cache si está (con el domicilio actual, ver withDomicilios); si no,
+     * de la base, y la publica solo si ninguna escritura sobre esa franja del cache ocurrió
+     * mientras se leía. Se entregan copias.
+     */
+    @Override
+    public Optional<Persona> read(Integer id) {
+        if (cache == null || id == null) {
+            return super.read(id);
+        }
+        long start = System.nanoTime();
+        Persona cached = cache.get(id);
+        if (cached != null) {
+            Persona persona = withDomicilios(Map.of(id, cached)).get(id);
+            if (persona != null) {
+                readMetrics.record(start, 1, false);
+                return Optional.of(persona);
+            }
+        }
+        long stamp = cache.stamp(id);
+        Optional<Persona> loaded = super.read(id);
+        loaded.ifPresent(p -> cacheLoaded(id, p, stamp));
+        return loaded;
+    }
+
+    /**
+     * Igual que en BaseService, pero toma del cache las personas que ya están y solo
+     * consulta la base por las que faltan.
+     */
+    @Override
+    public Map<Integer, Persona> findAllByIds(Collection<Integer> ids) {
+        if (cache == null || ids == null) {
+            return super.findAllByIds(ids);
+        }
+        Map<Integer, Persona> cached = new HashMap<>();
+        for (Integer id : ids) {
+            Persona persona = id == null ? null : cache.get(id);
+            if (persona != null) {
+                cached.put(id, persona);
+            }
+        }
+        Map<Integer, Persona> hits = withDomicilios(cached);
+        Map<Integer, Long> stamps = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            if (id != null && !hits.containsKey(id)) {
+                // Igual que en read(): el sello se toma antes de ir a la base.
+                stamps.put(id, cache.stamp(id));
+            }
+        }
+        if (!stamps.isEmpty()) {
+            Map<Integer, Persona> loaded = super.findAllByIds(new ArrayList<>(stamps.keySet()));
+            loaded.forEach((id, p) -> cacheLoaded(id, p, stamps.get(id)));
+            hits.putAll(loaded);
+        }
+        Map<Integer, Persona> result = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            Persona persona = id == null ? null : hits.get(id);
+            if (persona != null) {
+                result.put(id, persona);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copias de las personas del cache con su domicilio leído del CachedDomicilioDAO: de
+     * memoria, o en una sola consulta para los que no estén en su cache. Las personas
+     * cuyo domicilio ya no se encuentra quedan afuera y se sacan del cache, para que se lean
+     * de la base.
+     */
+    private Map<Integer, Persona> withDomicilios(Map<Integer, Persona> cached) {
+        Map<Integer, Persona> result = new HashMap<>();
+        if (cached.isEmpty()) {
+            return result;
+        }
+        List<Integer> domicilioIds = new ArrayList<>();
+        for (Persona persona : cached.values()) {
+            if (persona.getDomicilio() != null) {
+                domicilioIds.add(persona.getDomicilio().getId());
+            }
+        }
+        Map<Integer, Domicilio> domicilios;
+        try {
+            domicilios = domicilioIds.isEmpty() ? Map.of() : personaDao.getDomicilioDao().findAllByIds(domicilioIds);
+        } catch (SQLException e) {
+            System.err.println("Error de servicio leyendo los domicilios de personas en cache: " + e.getMessage());
+            throw new RuntimeException("No se pudieron leer los domicilios de las personas.", e);
+        }
+        cached.forEach((id, persona) -> {
+            Domicilio domicilio = null;
+            if (persona.getDomicilio() != null) {
+                domicilio = domicilios.get(persona.getDomicilio().getId());
+                if (domicilio == null) {
+                    invalidate(id);
+                    return;
+                }
+                domicilio = new Domicilio(domicilio);
+            }
+            Persona copy = new Persona(persona.getId(), persona.getNombre(), persona.getEdad(), domicilio);
+            copy.markClean();
+            result.put(id, copy);
+        });
+        return result;
+    }
+
+    // El domicilio vino con la persona (PersonaDAO lo lee en la misma consulta): se deja
+    // también en el cache de domicilios para que el próximo acierto no tenga que leerlo.
+    private void cacheLoaded(Integer id, Persona persona, long stamp) {
+        cache.putIfUnchanged(id, cacheEntry(persona), stamp);
+        if (persona.getDomicilio() != null) {
+            ((CachedDomicilioDAO) personaDao.getDomicilioDao()).cacheRead(persona.getDomicilio());
+        }
+    }
+
+    // Lo que se guarda en el cache: la persona con solo el ID de su domicilio.
+    private static Persona cacheEntry(Persona persona) {
+        Domicilio domicilio = persona.getDomicilio() == null ? null : new Domicilio(persona.getDomicilio().getId(), null, null);
+        return new Persona(persona.getId(), persona.getNombre(), persona.getEdad(), domicilio);
+    }
+
+    private void invalidate(Integer id) {
+        if (cache != null && id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    // Se llama recién después del commit, para no cachear estado que pudo revertirse.
+    private void publish(Persona persona) {
+        if (cache != null) {
+            cache.put(persona.getId(), cacheEntry(persona));
+        }
+        if (nameIndex != null) {
+            nameIndex.put(persona.getId(), persona.getNombre());
+        }
+        if (nameFilter != null) {
+            nameFilter.add(persona.getNombre());
+        }
+    }
+
+    // Los cambios en lote llegan al índice y al filtro de nombres cuando se confirman.
+    private void indexAfterCommit(List<Persona> personas) {
+        if (nameIndex != null || nameFilter != null) {
+            TransactionContext.runAfterCommit(() -> personas.forEach(p -> {
+                if (nameIndex != null) {
+                    nameIndex.put(p.getId(), p.getNombre());
+                }
+                if (nameFilter != null) {
+                    nameFilter.add(p.getNombre());
+                }
+            }));
+        }
+    }
+
+    // Si un lote falla no se sabe qué parte quedó guardada (cada lote confirma por separado):
+    // el índice se recarga y el filtro recibe todos los nombres, porque uno de más solo
+    // cuesta una consulta y uno de menos daría un "no existe" falso.
+    private void bulkFailed(Collection<Persona> personas) {
+        if (nameIndex != null) {
+            nameIndex.invalidate();
+        }
+        if (nameFilter != null && personas != null) {
+            TransactionContext.runAfterCommit(() -> personas.stream().filter(Objects::nonNull).forEach(p -> nameFilter.add(p.getNombre())));
+        }
     }
 
     @Override
     public List<Persona> findAll() {
+    long start = System.nanoTime();
+    List<Persona> personas = null;
     try {
-        return personaDao.findAll();
+        personas = personaDao.findAll();
+        return personas;
     } catch (SQLException e) {
         System.err.println("Error en el servicio al intentar obtener todas las personas: " + e.getMessage());
         throw new RuntimeException("No se han podido conseguir todas las personas.", e);
+    } finally {
+        findAllMetrics.record(start, personas == null ? 0 : personas.size(), personas == null);
     }
 }
 
     @Override
     public void delete(Integer id) {
-        Connection conn = null;
+        invalidate(id);
+        long start = System.nanoTime();
+        Integer deleted = null;
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-            personaDao.delete(conn, id);
-            conn.commit();
+            deleted = TransactionManager.required(operation("delete"), conn -> {
+                int rows = personaDao.delete(conn, id);
+                TransactionContext.runAfterCommit(() -> {
+                    invalidate(id);
+                    if (nameIndex != null) {
+                        nameIndex.remove(id);
+                    }
+                });
+                return rows;
+            });
         } catch (SQLException e) {
             System.err.println("Error de servicio borrando Persona por ID: " + id);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Falló el rollback al borrar Persona por ID: " + id);
-                }
-            }
             throw new RuntimeException("No se pudo borrar la persona con ID: " + id, e);
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    System.err.println("No se pudo cerrar la conexión luego de borrar la personapor ID " + id);
-                }
-            }
+            deleteMetrics.record(start, deleted == null ? 0 : deleted, deleted == null);
+            invalidate(id);
         }
     }
 
@@ -70,50 +458,175 @@ public class PersonaService extends BaseService<Persona,Integer> {
         if (entity.getNombre() == null || entity.getNombre().trim().isEmpty()){
             throw new IllegalArgumentException("El nombre de la persona no puede estar vacío.");
         }
-        Optional<Persona> existingPersonaOptional = super.read(entity.getId());
-        if (existingPersonaOptional.isEmpty()) {
-            throw new RuntimeException("La persona con ID " + entity.getId() + " no fue encontrada para actualizar.");
+        // Como siempre, update cambia solo nombre y edad: el domicilio se cambia con
+        // DomicilioService.update. Se escribe una copia sin domicilio en la que solo figuran
+        // como modificadas esas dos columnas (si el llamador las cambió): no hace falta leer la
+        // persona antes y una persona armada con new no pisa el domicilio, que otras personas
+        // pueden compartir. Si el ID no existe, el UPDATE no afecta filas y falla en la transacción.
+        int fields = entity.getDirtyFields() & (Persona.NOMBRE | Persona.EDAD);
+        if (fields == 0) {
+            // Sin cambios no se escribe nada, así que tampoco se publica: la fila pudo haberse borrado.
+            return entity;
+        }
+        Persona toWrite = new Persona(entity.getId(), entity.getNombre(), entity.getEdad(), null);
+        toWrite.markClean(Persona.ALL_FIELDS & ~fields);
+        Integer id = entity.getId();
+        invalidate(id);
+        try {
+            super.update(toWrite);
+        } catch (RuntimeException e) {
+            invalidate(id);
+            throw e;
         }
-        
-        Persona personaToUpdate = existingPersonaOptional.get();
-        personaToUpdate.setNombre(entity.getNombre());
-        personaToUpdate.setEdad(entity.getEdad()); 
-        return super.update(personaToUpdate); 
+        TransactionContext.runAfterCommit(() -> {
+            entity.markClean(fields);
+            // El cache no se actualiza: esta persona no trae el domicilio guardado. La próxima lectura la carga.
+            invalidate(id);
+            if (nameIndex != null) {
+                nameIndex.put(id, entity.getNombre());
+            }
+            if (nameFilter != null) {
+                nameFilter.add(entity.getNombre());
+            }
+        });
+        return entity;
     }
 
     @Override
-    public Persona create(Persona persona) {
+    public List<Persona> createAll(Collection<Persona> personas) {
+        if (personas != null) {
+            for (Persona persona : personas) {
+                if (persona != null && persona.getId() != 0) {
+                    throw new IllegalArgumentException("No se puede crear una persona con un ID existente, porfavor actualice con update.");
+                }
+            }
+        }
+        try {
+            List<Persona> created = super.createAll(personas);
+            indexAfterCommit(created);
+            return created;
+        } catch (RuntimeException e) {
+            bulkFailed(personas);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Persona> updateAll(Collection<Persona> personas) {
+        if (personas != null) {
+            for (Persona persona : personas) {
+                if (persona != null && (persona.getNombre() == null || persona.getNombre().trim().isEmpty())) {
+                    throw new IllegalArgumentException("El nombre de la persona no puede estar vacío.");
+                }
+            }
+        }
+        try {
+            List<Persona> updated = super.updateAll(personas);
+            indexAfterCommit(updated);
+            return updated;
+        } catch (RuntimeException e) {
+            bulkFailed(personas);
+            throw e;
+        } finally {
+            if (personas != null) {
+                personas.stream().filter(Objects::nonNull).forEach(p -> invalidate(p.getId()));
+            }
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) {
+        try {
+            int deleted = super.deleteAll(ids);
+            if (nameIndex != null) {
+                TransactionContext.runAfterCommit(() -> ids.stream().filter(Objects::nonNull).forEach(nameIndex::remove));
+            }
+            return deleted;
+        } catch (RuntimeException e) {
+            if (nameIndex != null) {
+                nameIndex.invalidate();
+            }
+            throw e;
+        } finally {
+            if (ids != null) {
+                ids.stream().filter(Objects::nonNull).forEach(this::invalidate);
+            }
+        }
+    }
+
+    /**
+     * Reglas que debe cumplir cada persona de una importación (las de importAll, que también
+     * usa importer.CsvImporter); lanza IllegalArgumentException con el motivo si no las cumple.
+     */
+    public static void validateImport(Persona persona) {
+        if (persona == null) {
+            throw new IllegalArgumentException("La colección de personas a importar no puede contener nulos.");
+        }
         if (persona.getId() != 0) {
             throw new IllegalArgumentException("No se puede crear una persona con un ID existente, porfavor actualice con update.");
         }
-        Connection conn = null;
+        if (persona.getNombre() == null || persona.getNombre().trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre de la persona no puede estar vacío.");
+        }
+        Domicilio domicilio = persona.getDomicilio();
+        if (domicilio == null || domicilio.getLocalidad() == null || domicilio.getLocalidad().trim().isEmpty() ||
+            domicilio.getProvincia() == null || domicilio.getProvincia().trim().isEmpty()) {
+            throw new IllegalArgumentException("La persona " + persona.getNombre() + " debe tener un domicilio con provincia y localidad.");
+        }
+    }
+
+    /**
+     * Avisa de personas ya confirmadas que se insertaron sin pasar por el servicio (por
+     * ejemplo con importer.CsvImporter), para que lleguen al índice y al filtro de nombres.
+     */
+    public void imported(List<Persona> personas) {
+        indexAfterCommit(personas);
+    }
+
+    /**
+     * Carga masiva de personas. A diferencia de createAll, deduplica los domicilios nuevos
+     * por (localidad, provincia) y los inserta en lote antes que las personas.
+     */
+    public List<Persona> importAll(Collection<Persona> personas) {
+        if (personas == null) {
+            throw new IllegalArgumentException("La colección de personas a importar no puede ser nula.");
+        }
+        for (Persona persona : personas) {
+            validateImport(persona);
+        }
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
+            List<Persona> imported = personaDao.importAll(personas);
+            indexAfterCommit(imported);
+            return imported;
+        } catch (SQLException e) {
+            bulkFailed(personas);
+            System.err.println("Error de servicio importando personas: " + e.getMessage());
+            throw new RuntimeException("No se pudieron importar las personas.", e);
+        }
+    }
 
-            personaDao.insert(conn, persona);
-            conn.commit();
-            return persona;
+    @Override
+    public Persona create(Persona persona) {
+        if (persona.getId() != 0) {
+            throw new IllegalArgumentException("No se puede crear una persona con un ID existente, porfavor actualice con update.");
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Persona created = TransactionManager.required(operation("create"), conn -> {
+                personaDao.insert(conn, persona);
+                // Si esta creación forma parte de una transacción mayor, se publica recién cuando esa confirme.
+                TransactionContext.runAfterCommit(() -> publish(persona));
+                return persona;
+            });
+            failed = false;
+            return created;
         } catch (SQLException e) {
             System.err.println("Error de servicio creando persona: " + persona.getNombre() + e.getMessage() +"\n");
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Fallo de rollback creando persona: " + persona.getNombre());
-                }
-            }
             throw new RuntimeException("No se pudo crear la persona: " + persona.getNombre(), e);
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    System.err.println("No se pudo cerrar la conexión después de crear a persona:  " + persona.getNombre());
-                }
-            }
+            createMetrics.record(start, failed ? 0 : 1, failed);
         }
     }
     
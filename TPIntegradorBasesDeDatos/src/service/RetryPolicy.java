@@ -0,0 +1,204 @@
+package service;
+
+import config.DatabaseConnection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decide si una transacción que falló se vuelve a ejecutar completa. Solo se reintentan
+ * los errores que InnoDB resuelve abortando una de las transacciones en conflicto:
+ * deadlock (1213, SQLState 40001) y espera de lock vencida (1205).
+ *
+ * Entre intentos se espera un tiempo al azar entre 0 y base * 2^intento (sin pasar de
+ * maxDelayMs), así los hilos que chocaron no vuelven a chocar al mismo tiempo. Además hay
+ * un presupuesto de reintentos compartido: cada reintento gasta una ficha y cada
+ * transacción que confirma al primer intento devuelve una décima. Si la base está
+ * saturada el presupuesto se agota y los errores se propagan en lugar de multiplicar la carga.
+ *
+ * Se configura con DB_RETRY_MAX_ATTEMPTS, DB_RETRY_BASE_DELAY_MS, DB_RETRY_MAX_DELAY_MS y DB_RETRY_BUDGET.
+ */
+public class RetryPolicy {
+
+    private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getName());
+
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final String SQLSTATE_SERIALIZATION_FAILURE = "40001";
+
+    // El presupuesto se lleva en milésimas de ficha para poder devolver fracciones sin usar double.
+    private static final long TOKEN = 1000;
+    private static final long REFILL_PER_SUCCESS = TOKEN / 10;
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxBudget;
+    private final AtomicLong budget;
+
+    private final ConcurrentHashMap<String, LongAdder> retries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> exhausted = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAttempts intentos totales, contando el primero; 1 desactiva los reintentos.
+     * @param budget reintentos que se pueden gastar de golpe antes de que el presupuesto se agote.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, int budget) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("La cantidad de intentos debe ser al menos 1.");
+        }
+        if (baseDelayMs < 0 || maxDelayMs < baseDelayMs) {
+            throw new IllegalArgumentException("Las esperas entre reintentos son inválidas (base " + baseDelayMs + ", máximo " + maxDelayMs + ").");
+        }
+        if (budget < 0) {
+            throw new IllegalArgumentException("El presupuesto de reintentos no puede ser negativo.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxBudget = budget * TOKEN;
+        this.budget = new AtomicLong(maxBudget);
+    }
+
+    public static RetryPolicy fromSettings() {
+        return new RetryPolicy(
+                DatabaseConnection.getIntSetting("DB_RETRY_MAX_ATTEMPTS", 4),
+                DatabaseConnection.getLongSetting("DB_RETRY_BASE_DELAY_MS", 20),
+                DatabaseConnection.getLongSetting("DB_RETRY_MAX_DELAY_MS", 1000),
+                DatabaseConnection.getIntSetting("DB_RETRY_BUDGET", 100));
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, 0, 0, 0);
+    }
+
+    /**
+     * Indica si la excepción (o alguna de su cadena de causas o de getNextException)
+     * es un deadlock o una espera de lock vencida.
+     */
+    public static boolean isRetryable(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                for (SQLException e = (SQLException) t; e != null; e = e.getNextException()) {
+                    if (e instanceof SQLTransactionRollbackException
+                            || e.getErrorCode() == ER_LOCK_DEADLOCK
+                            || e.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                            || SQLSTATE_SERIALIZATION_FAILURE.equals(e.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decide si corresponde otro intento después de que falló el número attempt (empezando en 1).
+     * Si corresponde, gasta una ficha del presupuesto, espera el backoff y devuelve true.
+     * Si el hilo se interrumpe durante la espera devuelve false y deja la marca de interrupción.
+     */
+    boolean shouldRetry(String operation, int attempt, Throwable error) {
+        if (!isRetryable(error)) {
+            return false;
+        }
+        if (attempt >= maxAttempts || !takeToken()) {
+            if (maxAttempts > 1) {
+                counter(exhausted, operation).increment();
+                LOGGER.log(Level.WARNING, "Se abandona " + operation + " después de " + attempt + " intento(s) por contención: " + error.getMessage());
+            }
+            return false;
+        }
+        counter(retries, operation).increment();
+        long delay = backoff(attempt);
+        LOGGER.log(Level.FINE, "Reintentando " + operation + " (intento " + (attempt + 1) + " de " + maxAttempts + ") en " + delay + " ms: " + error.getMessage());
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Se llama cuando una transacción confirma al primer intento; recarga de a poco el presupuesto.
+     */
+    void onFirstAttemptSuccess() {
+        if (maxBudget == 0) {
+            return;
+        }
+        budget.updateAndGet(b -> Math.min(maxBudget, b + REFILL_PER_SUCCESS));
+    }
+
+    private boolean takeToken() {
+        while (true) {
+            long current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private long backoff(int attempt) {
+        // attempt es el intento que falló: 1 -> hasta base, 2 -> hasta 2*base, ...
+        long ceiling = baseDelayMs << Math.min(attempt - 1, 30);
+        ceiling = ceiling < 0 ? maxDelayMs : Math.min(ceiling, maxDelayMs);
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String operation) {
+        return counters.computeIfAbsent(operation == null ? "desconocida" : operation, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((operation, count) -> result.put(operation, count.sum()));
+        return result;
+    }
+
+    /**
+     * Reintentos hechos por operación (por ejemplo "PersonaService.update"). Las operaciones
+     * con más reintentos son las que más chocan por locks.
+     */
+    public Map<String, Long> getRetryCounts() {
+        return snapshot(retries);
+    }
+
+    /**
+     * Operaciones que fallaron por contención sin poder reintentarse más (intentos o presupuesto agotados).
+     */
+    public Map<String, Long> getExhaustedCounts() {
+        return snapshot(exhausted);
+    }
+
+    public long getTotalRetries() {
+        return retries.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public double getRemainingBudget() {
+        return (double) budget.get() / TOKEN;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", baseDelayMs=" + baseDelayMs + ", maxDelayMs=" + maxDelayMs
+                + ", budget=" + getRemainingBudget() + ", retries=" + getRetryCounts() + ", exhausted=" + getExhaustedCounts() + "}";
+    }
+}
@@ -0,0 +1,200 @@
+package service;
+
+import config.DatabaseConnection;
+import config.TransactionContext;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Demarca transacciones ligando una conexión al hilo actual. Mientras la transacción está
+ * abierta, los DAO usan esa misma conexión en vez de pedir otra, así una operación de
+ * servicio hace un solo préstamo de conexión y un solo commit sin importar cuántas
+ * llamadas a DAO haga.
+ *
+ * Ejemplo:
+ * <pre>
+ * Persona p = TransactionManager.execute(Propagation.REQUIRED, false, conn -&gt; personaDao.insert(conn, persona));
+ * </pre>
+ */
+public final class TransactionManager {
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionManager.class.getName());
+
+    public enum Propagation {
+        /** Se une a la transacción activa del hilo, o abre una nueva si no hay. */
+        REQUIRED,
+        /** Siempre abre una transacción nueva con otra conexión; la activa queda suspendida mientras tanto. */
+        REQUIRES_NEW
+    }
+
+    @FunctionalInterface
+    public interface TransactionCallback<R> {
+        R doInTransaction(Connection conn) throws SQLException;
+    }
+
+    private static volatile RetryPolicy retryPolicy;
+
+    private TransactionManager() {
+    }
+
+    /**
+     * Política de reintentos de las transacciones que abre este TransactionManager.
+     * Por defecto se arma con {@link RetryPolicy#fromSettings()} la primera vez que se pide.
+     */
+    public static RetryPolicy getRetryPolicy() {
+        RetryPolicy policy = retryPolicy;
+        if (policy == null) {
+            synchronized (TransactionManager.class) {
+                if (retryPolicy == null) {
+                    retryPolicy = RetryPolicy.fromSettings();
+                }
+                policy = retryPolicy;
+            }
+        }
+        return policy;
+    }
+
+    public static void setRetryPolicy(RetryPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("La política de reintentos no puede ser nula; use RetryPolicy.none() para desactivarla.");
+        }
+        retryPolicy = policy;
+    }
+
+    public static <R> R required(TransactionCallback<R> callback) throws SQLException {
+        return execute(null, Propagation.REQUIRED, false, callback);
+    }
+
+    public static <R> R required(String operation, TransactionCallback<R> callback) throws SQLException {
+        return execute(operation, Propagation.REQUIRED, false, callback);
+    }
+
+    public static <R> R requiresNew(TransactionCallback<R> callback) throws SQLException {
+        return execute(null, Propagation.REQUIRES_NEW, false, callback);
+    }
+
+    public static <R> R requiresNew(String operation, TransactionCallback<R> callback) throws SQLException {
+        return execute(operation, Propagation.REQUIRES_NEW, false, callback);
+    }
+
+    public static <R> R readOnly(TransactionCallback<R> callback) throws SQLException {
+        return execute(null, Propagation.REQUIRED, true, callback);
+    }
+
+    public static boolean isActive() {
+        return TransactionContext.current() != null;
+    }
+
+    public static <R> R execute(Propagation propagation, boolean readOnly, TransactionCallback<R> callback) throws SQLException {
+        return execute(null, propagation, readOnly, callback);
+    }
+
+    /**
+     * Ejecuta callback dentro de una transacción. Si falla con SQLException o
+     * RuntimeException se hace rollback y la excepción se propaga sin envolver.
+     * Si el callback se une a una transacción existente y falla, esa transacción queda
+     * marcada para rollback.
+     *
+     * Cuando la transacción la abre este llamado (no se une a otra) y falla por deadlock o
+     * espera de lock vencida, se repite entera según {@link #getRetryPolicy()}: el callback
+     * puede ejecutarse más de una vez y no debe tener efectos fuera de la base que no se
+     * deshagan con el rollback. Las transacciones a las que solo se une nunca se reintentan
+     * por su cuenta; el error sube hasta la que las abrió.
+     *
+     * @param operation nombre con el que se cuentan los reintentos (por ejemplo "PersonaService.update"); puede ser null.
+     * @param readOnly pista para el driver (Connection.setReadOnly); se ignora al unirse a una transacción existente.
+     */
+    public static <R> R execute(String operation, Propagation propagation, boolean readOnly, TransactionCallback<R> callback) throws SQLException {
+        TransactionContext current = TransactionContext.current();
+        if (current != null && propagation == Propagation.REQUIRED) {
+            try {
+                return callback.doInTransaction(current.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                current.setRollbackOnly(e);
+                throw e;
+            }
+        }
+
+        RetryPolicy policy = getRetryPolicy();
+        String name = operation != null ? operation : "transacción";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                R result = executeOnce(readOnly, callback);
+                if (attempt == 1) {
+                    policy.onFirstAttemptSuccess();
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                if (!policy.shouldRetry(name, attempt, e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static <R> R executeOnce(boolean readOnly, TransactionCallback<R> callback) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        TransactionContext context = null;
+        boolean committed = false;
+        try {
+            conn.setAutoCommit(false);
+            if (readOnly) {
+                conn.setReadOnly(true);
+            }
+            context = TransactionContext.bind(conn, readOnly);
+            R result = callback.doInTransaction(conn);
+            if (context.isRollbackOnly()) {
+                throw new SQLException("La transacción fue marcada para rollback por una operación anidada que falló.", context.getRollbackCause());
+            }
+            conn.commit();
+            committed = true;
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rbEx) {
+                LOGGER.log(Level.SEVERE, "Falló el rollback de la transacción.", rbEx);
+                e.addSuppressed(rbEx);
+            }
+            throw e;
+        } finally {
+            if (context != null) {
+                context.unbind();
+            }
+            try {
+                if (readOnly) {
+                    conn.setReadOnly(false);
+                }
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException closeEx) {
+                LOGGER.log(Level.SEVERE, "Error al cerrar la conexión de la transacción.", closeEx);
+            }
+            if (context != null) {
+                if (committed) {
+                    runActions(context.getAfterCommitActions(), "posterior al commit");
+                } else {
+                    // En orden inverso, para que cada valor vuelva al que tenía antes de la transacción.
+                    List<Runnable> undo = new ArrayList<>(context.getAfterRollbackActions());
+                    Collections.reverse(undo);
+                    runActions(undo, "posterior al rollback");
+                }
+            }
+        }
+    }
+
+    private static void runActions(List<Runnable> actions, String kind) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Falló una acción " + kind + ".", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/**
+ * normalize tiene que unir todo lo que utf8mb4_general_ci considera igual: si no, el
+ * filtro de nombres descarta un nombre que existe.
+ */
+public class NameIndexTest {
+
+    @Test
+    public void uneMayusculasAcentosYEspacios() {
+        assertEquals(NameIndex.normalize("José Pérez"), NameIndex.normalize("  JOSE PEREZ "));
+        assertEquals(NameIndex.normalize("Ñandú"), NameIndex.normalize("nandu"));
+    }
+
+    @Test
+    public void uneEszettConS() {
+        assertEquals(NameIndex.normalize("Straße"), NameIndex.normalize("Strase"));
+        assertEquals(NameIndex.normalize("STRAẞE"), NameIndex.normalize("strase"));
+    }
+
+    @Test
+    public void uneIesConYSinPunto() {
+        assertEquals(NameIndex.normalize("Işık"), NameIndex.normalize("ISIK"));
+        assertEquals(NameIndex.normalize("İnci"), NameIndex.normalize("inci"));
+    }
+
+    @Test
+    public void uneCaracteresFueraDelPlanoBasico() {
+        assertEquals(NameIndex.normalize("Ana 😀"), NameIndex.normalize("Ana 😃"));
+    }
+
+    @Test
+    public void noUneNombresDistintos() {
+        assertNotEquals(NameIndex.normalize("Ana"), NameIndex.normalize("Ena"));
+        assertNotEquals(NameIndex.normalize("Strase"), NameIndex.normalize("Strasse"));
+    }
+
+    @Test
+    public void elFiltroNoDaFalsoNegativo() throws SQLException {
+        NameFilter filter = new NameFilter(new NameFilter.Source() {
+            @Override
+            public long count() {
+                return 1;
+            }
+
+            @Override
+            public Stream<String> names() {
+                return Stream.of("Straße Işık");
+            }
+        }, 0.01);
+        filter.rebuild();
+        assertTrue(filter.mightContain("strase isik"));
+    }
+}
@@ -0,0 +1,161 @@
+package config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import benchmarks.EmbeddedDatabase;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Límite de conexiones, espera acotada, validación, detección de fugas y desalojo del pool,
+ * contra la base H2 en memoria de los benchmarks.
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeClass
+    public static void startDatabase() throws SQLException, IOException {
+        EmbeddedDatabase.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Sin conexiones mínimas ni cache de statements; el mantenimiento corre cada segundo (el mínimo).
+    private static ConnectionPool.Config config(int maxSize, long connectionTimeoutMs, long idleTimeoutMs,
+                                                long maxLifetimeMs, long leakDetectionThresholdMs) {
+        return new ConnectionPool.Config(maxSize, 0, connectionTimeoutMs, idleTimeoutMs, maxLifetimeMs,
+                leakDetectionThresholdMs, 1, 1000, 0);
+    }
+
+    @Test
+    public void noPasaDelMaximoYEsperaAcotado() throws SQLException {
+        pool = new ConnectionPool(config(2, 200, 0, 0, 0));
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        long start = System.nanoTime();
+        try {
+            pool.getConnection();
+            fail("Se esperaba el timeout del pool.");
+        } catch (SQLTimeoutException expected) {
+            assertTrue(System.nanoTime() - start >= 150_000_000L);
+        }
+        assertEquals(1, pool.getBorrowTimeouts());
+        assertEquals(2, pool.getTotalConnections());
+
+        first.close();
+        Connection third = pool.getConnection();
+        assertEquals(1, selectOne(third));
+        // Se reutilizó la conexión devuelta: no se abrió otra.
+        assertEquals(2, pool.getCreatedConnections());
+        third.close();
+        second.close();
+        assertEquals(2, pool.getIdleConnections());
+    }
+
+    @Test
+    public void unaConexionDevueltaNoSePuedeUsar() throws SQLException {
+        pool = new ConnectionPool(config(1, 200, 0, 0, 0));
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+        try {
+            conn.createStatement();
+            fail("Se esperaba el error por usar una conexión devuelta.");
+        } catch (SQLException expected) {
+            // El proxy de cada préstamo queda inutilizable al devolverlo.
+        }
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    @Test
+    public void descartaLaConexionQueNoPasaLaValidacion() throws Exception {
+        pool = new ConnectionPool(config(1, 1000, 0, 0, 0));
+        Connection conn = pool.getConnection();
+        int session;
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT SESSION_ID()")) {
+            rs.next();
+            session = rs.getInt(1);
+        }
+        conn.close();
+        // La base corta la sesión mientras la conexión está ociosa en el pool.
+        try (Connection admin = DriverManager.getConnection(System.getProperty("DB_URL"), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+             Statement st = admin.createStatement()) {
+            st.execute("CALL ABORT_SESSION(" + session + ")");
+        }
+        // Pasado este tiempo desde que se devolvió, el pool la valida antes de entregarla.
+        Thread.sleep(600);
+
+        Connection again = pool.getConnection();
+        assertEquals(1, selectOne(again));
+        again.close();
+        assertEquals(1, pool.getDestroyedConnections());
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void detectaUnaConexionQueNoSeDevuelve() throws Exception {
+        pool = new ConnectionPool(config(1, 200, 0, 0, 100));
+        Connection conn = pool.getConnection();
+        waitFor(() -> pool.getLeaksDetected() == 1);
+        conn.close();
+        assertEquals(1, pool.getLeaksDetected());
+    }
+
+    @Test
+    public void desalojaLasConexionesOciosas() throws Exception {
+        pool = new ConnectionPool(config(2, 200, 100, 0, 0));
+        pool.getConnection().close();
+        assertEquals(1, pool.getIdleConnections());
+        waitFor(() -> pool.getIdleConnections() == 0);
+        assertEquals(0, pool.getTotalConnections());
+        assertEquals(1, pool.getDestroyedConnections());
+    }
+
+    @Test
+    public void noReutilizaUnaConexionVencida() throws Exception {
+        pool = new ConnectionPool(config(1, 200, 0, 100, 0));
+        pool.getConnection().close();
+        Thread.sleep(150);
+        Connection conn = pool.getConnection();
+        assertEquals(1, selectOne(conn));
+        conn.close();
+        assertEquals(2, pool.getCreatedConnections());
+        assertTrue(pool.getDestroyedConnections() >= 1);
+    }
+
+    private static int selectOne(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // El mantenimiento corre en su propio hilo: se espera hasta que la condición se cumpla.
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("La condición no se cumplió a tiempo.");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
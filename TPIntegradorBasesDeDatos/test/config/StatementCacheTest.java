@@ -0,0 +1,70 @@
+package config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Un statement que vuelve al cache no puede traer las opciones que le puso el préstamo anterior.
+ */
+public class StatementCacheTest {
+
+    private static final String SQL = "SELECT 1";
+
+    private Connection physical;
+    private StatementCache.Stats stats;
+    private StatementCache cache;
+
+    @Before
+    public void setUp() throws SQLException {
+        physical = DriverManager.getConnection("jdbc:h2:mem:statementcache;MODE=MySQL", "sa", "");
+        stats = new StatementCache.Stats();
+        cache = new StatementCache(physical, 8, stats);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cache.closeAll();
+        physical.close();
+    }
+
+    @Test
+    public void restauraLasOpcionesAlDevolverlo() throws SQLException {
+        PreparedStatement ps = cache.prepare(physical, SQL, null);
+        int fetchSize = ps.getFetchSize();
+        int maxRows = ps.getMaxRows();
+        int queryTimeout = ps.getQueryTimeout();
+        ps.setFetchSize(fetchSize + 7);
+        ps.setMaxRows(1);
+        ps.setQueryTimeout(queryTimeout + 5);
+        ps.setEscapeProcessing(false);
+        ps.close();
+
+        PreparedStatement again = cache.prepare(physical, SQL, null);
+        assertEquals(1, stats.hits.sum());
+        assertEquals(fetchSize, again.getFetchSize());
+        assertEquals(maxRows, again.getMaxRows());
+        assertEquals(queryTimeout, again.getQueryTimeout());
+        again.close();
+    }
+
+    @Test
+    public void descartaLoQueNoSePuedeRestaurar() throws SQLException {
+        PreparedStatement ps = cache.prepare(physical, SQL, null);
+        ps.closeOnCompletion();
+        ps.close();
+
+        PreparedStatement again = cache.prepare(physical, SQL, null);
+        assertEquals(0, stats.hits.sum());
+        assertEquals(2, stats.misses.sum());
+        assertFalse(again.isCloseOnCompletion());
+        again.close();
+    }
+}
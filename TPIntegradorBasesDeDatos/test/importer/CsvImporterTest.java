@@ -0,0 +1,158 @@
+package importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import benchmarks.EmbeddedDatabase;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Persona;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Un lote que la base rechaza se parte por mitades hasta aislar las filas malas, que van
+ * al archivo de rechazos junto con las que no pasan la validación. Usa la base H2 en
+ * memoria de los benchmarks.
+ */
+public class CsvImporterTest {
+
+    private static final int BATCH_SIZE = 8;
+    // Supera el varchar(254) de persona.nombre: la validación la deja pasar y la base no.
+    private static final String NOMBRE_LARGO = "N".repeat(300);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger transactions = new AtomicInteger();
+
+    @Before
+    public void setUp() throws SQLException, IOException {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(10);
+    }
+
+    @Test
+    public void parteElLoteYRechazaSoloLaFilaMala() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("nombre,edad,localidad,provincia");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            lines.add((i == 5 ? NOMBRE_LARGO : "Importada " + i) + ",30,Godoy Cruz,Mendoza");
+        }
+        lines.add("Edad Mala,treinta,Godoy Cruz,Mendoza");
+        Path rejects = folder.getRoot().toPath().resolve("rechazos.csv");
+        CsvImporter importer = importer(new CountingDAO(null));
+        importer.setRejectFile(rejects);
+
+        ImportResult result = importer.importFile(write(lines));
+
+        assertEquals(9, result.rows());
+        assertEquals(7, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(7, count("persona WHERE nombre LIKE 'Importada %'"));
+        // 8 filas con una mala: el lote, sus dos mitades, dos cuartos y dos filas sueltas.
+        assertEquals(7, transactions.get());
+
+        // Los rechazos de la validación y los de la base se escriben en el orden en que ocurren,
+        // y el motivo que da la base puede ocupar varias líneas (va entre comillas).
+        String rejected = Files.readString(rejects, StandardCharsets.UTF_8);
+        assertTrue(rejected.startsWith("nombre,edad,localidad,provincia,linea,motivo\r\n"));
+        assertTrue(rejected.contains("\n" + NOMBRE_LARGO + ",30,Godoy Cruz,Mendoza,7,\""));
+        assertTrue(rejected.contains("\nEdad Mala,treinta,Godoy Cruz,Mendoza,10,\"La edad debe ser un número entero"));
+    }
+
+    @Test
+    public void sinRechazosNoCreaElArchivo() throws Exception {
+        Path rejects = folder.getRoot().toPath().resolve("rechazos.csv");
+        CsvImporter importer = importer(new CountingDAO(null));
+        importer.setRejectFile(rejects);
+
+        ImportResult result = importer.importFile(write(List.of("edad,nombre,provincia,localidad", "40,Sola,Mendoza,Maipú")));
+
+        assertEquals(1, result.imported());
+        assertEquals(0, result.rejected());
+        assertFalse(Files.exists(rejects));
+    }
+
+    @Test
+    public void unErrorDeConexionNoSeParte() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("nombre,edad,localidad,provincia");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            lines.add("Sin Conexion " + i + ",30,Godoy Cruz,Mendoza");
+        }
+        Path rejects = folder.getRoot().toPath().resolve("rechazos.csv");
+        CsvImporter importer = importer(new CountingDAO(new SQLNonTransientConnectionException("Conexión perdida", "08S01")));
+        importer.setRejectFile(rejects);
+
+        try {
+            importer.importFile(write(lines));
+            fail("Se esperaba el error de conexión.");
+        } catch (SQLException expected) {
+            assertEquals("08S01", expected.getSQLState());
+        }
+        assertEquals(1, transactions.get());
+        assertEquals(0, count("persona WHERE nombre LIKE 'Sin Conexion %'"));
+        assertFalse(Files.exists(rejects));
+    }
+
+    private CsvImporter importer(PersonaDAO dao) {
+        dao.setBatchSize(BATCH_SIZE);
+        CsvImporter importer = new CsvImporter(dao);
+        // Un solo hilo de cada etapa, para que los lotes y sus mitades sean siempre los mismos.
+        importer.setParserThreads(1);
+        importer.setWriterThreads(1);
+        return importer;
+    }
+
+    private Path write(List<String> lines) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static int count(String from) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(System.getProperty("DB_URL"), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + from)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // Cuenta las transacciones de inserción; con failure, todas fallan con ese error.
+    private final class CountingDAO extends PersonaDAO {
+        private final SQLException failure;
+
+        CountingDAO(SQLException failure) {
+            super(new DomicilioDAO());
+            this.failure = failure;
+        }
+
+        @Override
+        public List<Persona> importAll(Connection conn, List<Persona> personas) throws SQLException {
+            transactions.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return super.importAll(conn, personas);
+        }
+    }
+}
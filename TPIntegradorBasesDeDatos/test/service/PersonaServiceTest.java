@@ -0,0 +1,108 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import benchmarks.EmbeddedDatabase;
+import cache.StripedCache;
+import dao.CachedDomicilioDAO;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import model.Domicilio;
+import model.Persona;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * update cambia solo nombre y edad: el domicilio lo comparten varias personas y se cambia
+ * con DomicilioService. Un acierto del cache resuelve el domicilio en memoria. Usa la base
+ * H2 en memoria de los benchmarks.
+ */
+public class PersonaServiceTest {
+
+    // Con 20 personas hay 2 domicilios: las personas pares viven en el 1 y las impares en el 2.
+    private static final int PERSONAS = 20;
+
+    private CachedDomicilioDAO domicilioDao;
+    private PersonaService service;
+
+    @Before
+    public void setUp() throws SQLException, IOException {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(PERSONAS);
+        domicilioDao = new CachedDomicilioDAO(100, 60_000);
+        service = new PersonaService(new PersonaDAO(domicilioDao), new StripedCache<>(100, 4));
+    }
+
+    @Test
+    public void noEscribeElDomicilioCompartido() {
+        service.update(new Persona(2, "Persona Nueva", 40, new Domicilio(1, "Fake Loc", "Fake Prov")));
+
+        Persona actualizada = service.read(2).get();
+        assertEquals("Persona Nueva", actualizada.getNombre());
+        assertEquals(40, actualizada.getEdad());
+        assertEquals(1, actualizada.getDomicilio().getId());
+        Domicilio compartido = service.read(4).get().getDomicilio();
+        assertEquals(1, compartido.getId());
+        assertEquals("Localidad 1", compartido.getLocalidad());
+        assertEquals("Provincia 1", compartido.getProvincia());
+    }
+
+    @Test
+    public void noInsertaNiCambiaElDomicilio() {
+        int domicilios = new DomicilioService(domicilioDao).findAll().size();
+
+        service.update(new Persona(2, "Persona Nueva", 40, new Domicilio(0, "Otra Loc", "Otra Prov")));
+
+        assertEquals(domicilios, new DomicilioService(domicilioDao).findAll().size());
+        assertEquals(1, service.read(2).get().getDomicilio().getId());
+    }
+
+    @Test
+    public void aceptaPersonaSinDomicilio() {
+        service.update(new Persona(3, "Sin Domicilio", 50, null));
+
+        Persona actualizada = service.read(3).get();
+        assertEquals("Sin Domicilio", actualizada.getNombre());
+        assertNotNull(actualizada.getDomicilio());
+        assertEquals(2, actualizada.getDomicilio().getId());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void fallaSiLaPersonaNoExiste() {
+        service.update(new Persona(9999, "Invalid Person", 30, new Domicilio(1, "Fake Loc", "Fake Prov")));
+    }
+
+    @Test
+    public void unAciertoNoConsultaLaBase() throws SQLException {
+        service.read(2);
+        // Un cambio por fuera de los DAO: si el acierto fuera a la base, lo vería.
+        try (Connection conn = DriverManager.getConnection(System.getProperty("DB_URL"), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE domicilio SET localidad = 'Por fuera' WHERE id = 1");
+        }
+
+        assertEquals("Localidad 1", service.read(2).get().getDomicilio().getLocalidad());
+    }
+
+    @Test
+    public void unAciertoVeElDomicilioActualizado() {
+        service.read(2);
+        Domicilio domicilio = new DomicilioService(domicilioDao).read(1).get();
+        domicilio.setLocalidad("Godoy Cruz");
+        new DomicilioService(domicilioDao).update(domicilio);
+
+        assertEquals("Godoy Cruz", service.read(2).get().getDomicilio().getLocalidad());
+        assertEquals("Godoy Cruz", service.read(4).get().getDomicilio().getLocalidad());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void elCacheNecesitaCachedDomicilioDAO() {
+        new PersonaService(new PersonaDAO(new DomicilioDAO()), new StripedCache<>(100, 4));
+    }
+}
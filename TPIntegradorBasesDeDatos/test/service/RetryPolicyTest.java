@@ -0,0 +1,85 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import org.junit.Test;
+
+/**
+ * Qué errores se reintentan y cuánto: los intentos por transacción y el presupuesto compartido.
+ */
+public class RetryPolicyTest {
+
+    private static final SQLException DEADLOCK = new SQLException("Deadlock", "40001", 1213);
+
+    @Test
+    public void reconoceDeadlockEsperaDeLockYFallaDeSerializacion() {
+        assertTrue(RetryPolicy.isRetryable(DEADLOCK));
+        assertTrue(RetryPolicy.isRetryable(new SQLException("Lock wait timeout", "HY000", 1205)));
+        assertTrue(RetryPolicy.isRetryable(new SQLException("Serialization failure", "40001", 0)));
+        assertFalse(RetryPolicy.isRetryable(new SQLException("Duplicate entry", "23000", 1062)));
+        assertFalse(RetryPolicy.isRetryable(new IllegalStateException("Otro error")));
+    }
+
+    @Test
+    public void buscaEnLaCadenaDeCausas() {
+        assertTrue(RetryPolicy.isRetryable(new RuntimeException("Envuelto", DEADLOCK)));
+        BatchUpdateException batch = new BatchUpdateException("Lote", "HY000", 0, new int[0]);
+        batch.setNextException(new SQLException("Lock wait timeout", "HY000", 1205));
+        assertTrue(RetryPolicy.isRetryable(batch));
+    }
+
+    @Test
+    public void respetaLaCantidadDeIntentos() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0, 10);
+        assertTrue(policy.shouldRetry("op", 1, DEADLOCK));
+        assertTrue(policy.shouldRetry("op", 2, DEADLOCK));
+        assertFalse(policy.shouldRetry("op", 3, DEADLOCK));
+        assertEquals(Long.valueOf(2), policy.getRetryCounts().get("op"));
+        assertEquals(Long.valueOf(1), policy.getExhaustedCounts().get("op"));
+    }
+
+    @Test
+    public void noReintentaOtrosErrores() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0, 10);
+        assertFalse(policy.shouldRetry("op", 1, new SQLException("Duplicate entry", "23000", 1062)));
+        assertEquals(0, policy.getTotalRetries());
+        assertTrue(policy.getExhaustedCounts().isEmpty());
+    }
+
+    @Test
+    public void elPresupuestoLimitaLosReintentos() {
+        RetryPolicy policy = new RetryPolicy(5, 0, 0, 2);
+        assertTrue(policy.shouldRetry("a", 1, DEADLOCK));
+        assertTrue(policy.shouldRetry("b", 1, DEADLOCK));
+        assertFalse(policy.shouldRetry("c", 1, DEADLOCK));
+        assertEquals(0.0, policy.getRemainingBudget(), 0.0);
+        assertEquals(Long.valueOf(1), policy.getExhaustedCounts().get("c"));
+
+        // Cada transacción que confirma al primer intento devuelve una décima de ficha.
+        for (int i = 0; i < 10; i++) {
+            policy.onFirstAttemptSuccess();
+        }
+        assertEquals(1.0, policy.getRemainingBudget(), 1e-9);
+        assertTrue(policy.shouldRetry("c", 1, DEADLOCK));
+    }
+
+    @Test
+    public void elPresupuestoNoPasaDelMaximo() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0, 2);
+        for (int i = 0; i < 50; i++) {
+            policy.onFirstAttemptSuccess();
+        }
+        assertEquals(2.0, policy.getRemainingBudget(), 0.0);
+    }
+
+    @Test
+    public void noneNoReintentaNiCuentaAgotados() {
+        RetryPolicy policy = RetryPolicy.none();
+        assertFalse(policy.shouldRetry("op", 1, DEADLOCK));
+        assertTrue(policy.getExhaustedCounts().isEmpty());
+    }
+}
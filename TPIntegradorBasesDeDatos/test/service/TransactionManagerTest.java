@@ -0,0 +1,272 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import benchmarks.EmbeddedDatabase;
+import config.TransactionContext;
+import dao.DomicilioDAO;
+import dao.PersonaDAO;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import model.Domicilio;
+import model.Persona;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Propagación, hooks de commit/rollback y reintentos de TransactionManager, y las escrituras
+ * en lote que pasan por él. Usa la base H2 en memoria de los benchmarks.
+ */
+public class TransactionManagerTest {
+
+    private static final int PERSONAS = 10;
+
+    private RetryPolicy previous;
+    private RetryPolicy policy;
+
+    @Before
+    public void setUp() throws SQLException, IOException {
+        EmbeddedDatabase.start();
+        EmbeddedDatabase.populate(PERSONAS);
+        previous = TransactionManager.getRetryPolicy();
+        // Sin esperas entre intentos, para que la prueba no dependa del backoff.
+        policy = new RetryPolicy(3, 0, 0, 10);
+        TransactionManager.setRetryPolicy(policy);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionManager.setRetryPolicy(previous);
+    }
+
+    @Test
+    public void requiredSeUneALaTransaccionActiva() throws SQLException {
+        try {
+            TransactionManager.required(outer -> {
+                TransactionManager.required(inner -> {
+                    assertSame(outer, inner);
+                    return insertDomicilio(inner, "Unida");
+                });
+                throw new SQLException("Falla después de la operación anidada.");
+            });
+            fail("Se esperaba la excepción del callback.");
+        } catch (SQLException expected) {
+            // El rollback de la transacción externa deshace también lo anidado.
+        }
+        assertEquals(0, count("domicilio WHERE localidad = 'Unida'"));
+        assertFalse(TransactionManager.isActive());
+    }
+
+    @Test
+    public void unaFallaAnidadaAtrapadaRevierteTodo() throws SQLException {
+        try {
+            TransactionManager.required(conn -> {
+                insertDomicilio(conn, "Externa");
+                try {
+                    TransactionManager.required(inner -> {
+                        throw new SQLException("Falla anidada.");
+                    });
+                } catch (SQLException ignored) {
+                    // Quien abrió la transacción no ve el error, pero queda marcada para rollback.
+                }
+                return null;
+            });
+            fail("Se esperaba el rollback de la transacción marcada.");
+        } catch (SQLException expected) {
+            assertEquals("Falla anidada.", expected.getCause().getMessage());
+        }
+        assertEquals(0, count("domicilio WHERE localidad = 'Externa'"));
+    }
+
+    @Test
+    public void requiresNewSuspendeYReanuda() throws SQLException {
+        try {
+            TransactionManager.required(outer -> {
+                insertDomicilio(outer, "Externa");
+                TransactionManager.requiresNew(inner -> {
+                    assertNotSame(outer, inner);
+                    assertSame(inner, TransactionContext.currentConnection());
+                    return insertDomicilio(inner, "Nueva");
+                });
+                assertSame(outer, TransactionContext.currentConnection());
+                throw new SQLException("Falla la transacción externa.");
+            });
+            fail("Se esperaba la excepción del callback.");
+        } catch (SQLException expected) {
+            // La transacción nueva ya confirmó; la externa se revierte.
+        }
+        assertEquals(1, count("domicilio WHERE localidad = 'Nueva'"));
+        assertEquals(0, count("domicilio WHERE localidad = 'Externa'"));
+    }
+
+    @Test
+    public void readOnlyEsDeSoloLecturaParaLoQueSeUne() throws SQLException {
+        // H2 no refleja en isReadOnly() la pista que recibe el driver: se mira el contexto.
+        int personas = TransactionManager.readOnly(conn -> {
+            assertTrue(TransactionContext.current().isReadOnly());
+            return TransactionManager.required(inner -> {
+                assertSame(conn, inner);
+                assertTrue(TransactionContext.current().isReadOnly());
+                return count(inner, "persona");
+            });
+        });
+        assertEquals(PERSONAS, personas);
+        assertFalse(TransactionManager.isActive());
+        TransactionManager.required(conn -> {
+            assertFalse(TransactionContext.current().isReadOnly());
+            return null;
+        });
+    }
+
+    @Test
+    public void lasAccionesPosterioresCorrenSegunElResultado() throws SQLException {
+        List<String> events = new ArrayList<>();
+        TransactionManager.required(conn -> {
+            TransactionContext.runAfterCommit(() -> events.add("commit"));
+            TransactionContext.runAfterRollback(() -> events.add("rollback"));
+            events.add("callback");
+            return null;
+        });
+        assertEquals(List.of("callback", "commit"), events);
+
+        events.clear();
+        try {
+            TransactionManager.required(conn -> {
+                TransactionContext.runAfterCommit(() -> events.add("commit"));
+                TransactionContext.runAfterRollback(() -> events.add("rollback 1"));
+                TransactionContext.runAfterRollback(() -> events.add("rollback 2"));
+                throw new SQLException("Falla.");
+            });
+            fail("Se esperaba la excepción del callback.");
+        } catch (SQLException expected) {
+            // Las acciones de rollback corren en orden inverso y las de commit se descartan.
+        }
+        assertEquals(List.of("rollback 2", "rollback 1"), events);
+    }
+
+    @Test
+    public void reintentaDeadlockYEsperaDeLock() throws SQLException {
+        int[] calls = {0};
+        String result = TransactionManager.required("Prueba.reintento", conn -> {
+            calls[0]++;
+            if (calls[0] == 1) {
+                throw new SQLException("Deadlock simulado", "40001", 1213);
+            }
+            if (calls[0] == 2) {
+                throw new SQLException("Lock wait timeout simulado", "HY000", 1205);
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(3, calls[0]);
+        assertEquals(Long.valueOf(2), policy.getRetryCounts().get("Prueba.reintento"));
+    }
+
+    @Test
+    public void noReintentaAlUnirseAUnaTransaccion() throws SQLException {
+        int[] inner = {0};
+        try {
+            TransactionManager.required("Prueba.externa", conn -> TransactionManager.required("Prueba.interna", c -> {
+                inner[0]++;
+                throw new SQLException("Deadlock simulado", "40001", 1213);
+            }));
+            fail("Se esperaba el deadlock.");
+        } catch (SQLException expected) {
+            // Solo la transacción externa, que es la que se abrió, se repite.
+        }
+        assertEquals(3, inner[0]);
+        assertEquals(Long.valueOf(2), policy.getRetryCounts().get("Prueba.externa"));
+        assertEquals(null, policy.getRetryCounts().get("Prueba.interna"));
+    }
+
+    @Test
+    public void unLoteFallidoRestauraLosIds() throws SQLException {
+        PersonaService service = new PersonaService(new PersonaDAO(new DomicilioDAO()), null, null, null);
+        Persona ok = new Persona(0, "Buena", 30, new Domicilio(0, "Loc", "Prov"));
+        Persona bad = new Persona(0, "Mala", 30, new Domicilio(0, "L".repeat(300), "Prov"));
+        try {
+            service.createAll(List.of(ok, bad));
+            fail("Se esperaba el error por la localidad demasiado larga.");
+        } catch (RuntimeException expected) {
+            // El lote se revierte entero.
+        }
+        assertEquals(0, ok.getId());
+        assertEquals(0, ok.getDomicilio().getId());
+
+        service.createAll(List.of(ok));
+        assertTrue(ok.getId() > PERSONAS);
+        assertEquals(1, count("persona p JOIN domicilio d ON d.id = p.id_domicilio WHERE p.nombre = 'Buena' AND d.localidad = 'Loc'"));
+    }
+
+    @Test
+    public void unLoteReintentadoSeGuardaYCuentaUnaVez() throws SQLException {
+        int[] calls = {0};
+        PersonaDAO dao = new PersonaDAO(new DomicilioDAO()) {
+            @Override
+            public List<Persona> insertAll(Connection conn, List<Persona> personas) throws SQLException {
+                List<Persona> inserted = super.insertAll(conn, personas);
+                if (calls[0]++ == 0) {
+                    throw new SQLException("Deadlock simulado", "40001", 1213);
+                }
+                return inserted;
+            }
+
+            @Override
+            public int deleteAll(Connection conn, List<Integer> ids) throws SQLException {
+                int deleted = super.deleteAll(conn, ids);
+                if (calls[0]++ == 2) {
+                    throw new SQLException("Deadlock simulado", "40001", 1213);
+                }
+                return deleted;
+            }
+        };
+        List<Persona> personas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            personas.add(new Persona(0, "Reintento " + i, 30, new Domicilio(0, "Loc", "Prov")));
+        }
+        dao.createAll(personas);
+        assertEquals(2, calls[0]);
+        assertEquals(5, count("persona WHERE nombre LIKE 'Reintento %'"));
+        Map<String, Long> retries = policy.getRetryCounts();
+        assertEquals(Long.valueOf(1), retries.get("Persona.createAll"));
+
+        List<Integer> ids = new ArrayList<>();
+        personas.forEach(p -> ids.add(p.getId()));
+        assertEquals(5, dao.deleteAll(ids));
+        assertEquals(4, calls[0]);
+        assertEquals(0, count("persona WHERE nombre LIKE 'Reintento %'"));
+        assertEquals(Long.valueOf(1), policy.getRetryCounts().get("Persona.deleteAll"));
+    }
+
+    private static int insertDomicilio(Connection conn, String localidad) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            return st.executeUpdate("INSERT INTO domicilio (localidad, provincia) VALUES ('" + localidad + "', 'Prov')");
+        }
+    }
+
+    private static int count(String from) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(System.getProperty("DB_URL"), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD)) {
+            return count(conn, from);
+        }
+    }
+
+    private static int count(Connection conn, String from) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + from)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
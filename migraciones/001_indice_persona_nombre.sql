@@ -0,0 +1,13 @@
+-- Índice sobre persona.nombre para las búsquedas por nombre (PersonaService.searchByNombre
+-- y BaseDAO.existeNombre), que sin él recorren la tabla entera.
+--
+-- La columna usa utf8mb4_general_ci, que no distingue mayúsculas ni acentos, así que el
+-- mismo índice resuelve la igualdad (nombre = ?) y el prefijo (nombre LIKE 'abc%') en
+-- cualquiera de esas variantes, y devuelve las filas ya ordenadas por nombre. El ID va
+-- explícito como segunda columna para que el ORDER BY nombre, id de la paginación salga del
+-- índice sin ordenar; InnoDB ya lo guarda en cada entrada, así que no ocupa más lugar.
+--
+-- Aplicar una sola vez sobre una base creada con integradorprog2.sql:
+--   mysql -u <usuario> -p integradorprog2 < migraciones/001_indice_persona_nombre.sql
+
+CREATE INDEX idx_persona_nombre ON persona (nombre, id);
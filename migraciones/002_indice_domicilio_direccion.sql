@@ -0,0 +1,12 @@
+-- Índice sobre domicilio (localidad, provincia) para la búsqueda de direcciones existentes
+-- de PersonaDAO.importAll y importer.CsvImporter, que sin él recorre la tabla entera por
+-- cada lote importado.
+--
+-- Como en 001, la collation no distingue mayúsculas ni acentos. La importación agrupa las
+-- direcciones con la clave de cache.NameIndex.normalize, que une al menos lo mismo que
+-- la collation, así una dirección que el índice encuentra no se vuelve a insertar.
+--
+-- Aplicar una sola vez sobre una base creada con integradorprog2.sql:
+--   mysql -u <usuario> -p integradorprog2 < migraciones/002_indice_domicilio_direccion.sql
+
+CREATE INDEX idx_domicilio_direccion ON domicilio (localidad, provincia);